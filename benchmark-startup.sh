@@ -0,0 +1,82 @@
+#!/bin/sh
+# Compare cold start of the plain jar, the AppCDS + Spring AOT jar and the GraalVM native image,
+# measured as time from process launch to the HTTP endpoint answering and to the first record
+# consumed.
+#
+# Needs the same Kafka, Vault and Mongo credentials endpoints as a normal local run, and a page
+# image under file-path.prefix. The native variant is skipped unless native-image is on the PATH.
+# Every run consumes a page of a fresh book id, so already-extracted pages are never skipped.
+# The consumer group must already have committed offsets (run the service once), otherwise
+# auto-offset-reset: latest can miss a record sent before partitions are assigned.
+#
+# Usage: ./benchmark-startup.sh <image_path> [runs]
+set -e
+
+IMAGE=${1:?image path required}
+RUNS=${2:-5}
+PORT=${PORT:-8000}
+ARGS="--spring.profiles.active=local --server.port=$PORT"
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+processed() {
+  curl -s "http://localhost:$PORT/api/status" | sed -n 's/.*"totalMessagesProcessed":\([0-9]*\).*/\1/p'
+}
+
+# Launch a variant, report ready and first-record times in ms, then stop it
+run() {
+  NAME=$1
+  shift
+  START=$(now_ms)
+  "$@" $ARGS > "target/startup-$NAME.log" 2>&1 &
+  PID=$!
+
+  until [ -n "$(processed)" ]; do sleep 0.05; done
+  READY=$(( $(now_ms) - START ))
+
+  BOOK_ID="startup-$NAME-$START"
+  curl -s -o /dev/null -H 'Content-Type: application/json' \
+    -d "{\"book_id\":\"$BOOK_ID\",\"page_num\":1,\"image_path\":\"$IMAGE\"}" \
+    "http://localhost:$PORT/send-message"
+  until [ "$(processed)" -ge 1 ]; do sleep 0.05; done
+  FIRST=$(( $(now_ms) - START ))
+
+  kill "$PID"
+  wait "$PID" 2>/dev/null || true
+  echo "$READY $FIRST"
+}
+
+# Median of the ready and first-record times over RUNS starts
+measure() {
+  NAME=$1
+  shift
+  i=1
+  : > "target/startup-$NAME.txt"
+  while [ "$i" -le "$RUNS" ]; do
+    run "$NAME" "$@" >> "target/startup-$NAME.txt"
+    i=$((i + 1))
+  done
+  MID=$(( (RUNS + 1) / 2 ))
+  READY=$(cut -d' ' -f1 "target/startup-$NAME.txt" | sort -n | sed -n "${MID}p")
+  FIRST=$(cut -d' ' -f2 "target/startup-$NAME.txt" | sort -n | sed -n "${MID}p")
+  echo "variant=$NAME runs=$RUNS median ready=${READY}ms firstRecord=${FIRST}ms"
+}
+
+mvn -B -q -DskipTests clean package
+JAR=$(ls target/*.jar | head -1)
+measure jar java -jar "$JAR"
+
+mvn -B -q -Pcds -DskipTests package
+# Training start with the JVM that is measured, exiting once the context is refreshed
+java -XX:ArchiveClassesAtExit=target/cds/app.jsa -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true \
+  -jar target/cds/app.jar $ARGS > target/startup-cds-training.log 2>&1 || true
+measure cds java -XX:SharedArchiveFile=target/cds/app.jsa -Dspring.aot.enabled=true -jar target/cds/app.jar
+
+if command -v native-image > /dev/null; then
+  mvn -B -q -Pnative -DskipTests native:compile
+  measure native target/book-events-consumer
+else
+  echo "variant=native skipped: native-image not on PATH"
+fi
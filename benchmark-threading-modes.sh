@@ -0,0 +1,59 @@
+#!/bin/sh
+# Compare throughput and peak RSS of the platform-thread and virtual-thread execution modes.
+#
+# Needs the same Kafka, Vault and Mongo credentials endpoints as a normal local run, a JDK 21
+# on the PATH and page images under file-path.prefix named after IMAGE_PATTERN.
+# Every run sends its pages under a fresh book id, so already-extracted pages are never skipped.
+# Each run's line is appended to target/threading-<mode>.txt.
+#
+# Usage: ./benchmark-threading-modes.sh <pages> [mode]
+#   mode: record | batch | parallel (book-events.consumer.mode, default parallel)
+set -e
+
+PAGES=${1:?page count required}
+MODE=${2:-parallel}
+PORT=${PORT:-8000}
+IMAGE_PATTERN=${IMAGE_PATTERN:-page-%04d.png}
+
+mvn -B -q -Pjava21 -DskipTests package
+JAR=$(ls target/*.jar | head -1)
+
+processed() {
+  curl -s "http://localhost:$PORT/api/status" | sed -n 's/.*"totalMessagesProcessed":\([0-9]*\).*/\1/p'
+}
+
+run() {
+  VIRTUAL=$1
+  java -jar "$JAR" --spring.profiles.active=local --server.port="$PORT" \
+    --spring.threads.virtual.enabled="$VIRTUAL" --book-events.consumer.mode="$MODE" \
+    > "target/threading-$VIRTUAL.log" 2>&1 &
+  PID=$!
+
+  until [ -n "$(processed)" ]; do sleep 1; done
+  sleep 10  # let the consumer group settle before producing (auto-offset-reset: latest)
+
+  START=$(date +%s)
+  BOOK_ID="threading-$MODE-$VIRTUAL-$START"
+  i=1
+  while [ "$i" -le "$PAGES" ]; do
+    IMAGE=$(printf "$IMAGE_PATTERN" "$i")
+    curl -s -o /dev/null -H 'Content-Type: application/json' \
+      -d "{\"book_id\":\"$BOOK_ID\",\"page_num\":$i,\"image_path\":\"$IMAGE\"}" \
+      "http://localhost:$PORT/send-message"
+    i=$((i + 1))
+  done
+
+  until [ "$(processed)" -ge "$PAGES" ]; do sleep 1; done
+  ELAPSED=$(( $(date +%s) - START ))
+  RSS_KB=$(awk '/VmHWM/ {print $2}' "/proc/$PID/status")
+  THREADS=$(awk '/Threads/ {print $2}' "/proc/$PID/status")
+
+  kill "$PID"
+  wait "$PID" 2>/dev/null || true
+
+  echo "virtual=$VIRTUAL pages=$PAGES elapsed=${ELAPSED}s pages/s=$(echo "scale=2; $PAGES / ($ELAPSED + 0.001)" | bc) peakRSS=${RSS_KB}kB threads=$THREADS"
+}
+
+echo "mode=$MODE"
+run false | tee -a "target/threading-$MODE.txt"
+run true | tee -a "target/threading-$MODE.txt"
@@ -0,0 +1,25 @@
+#!/usr/bin/env bash
+#
+# Build the benchmark jar (which also generates the synthetic pages) and run the benchmarks with
+# the GC profiler, so each result reports ops/s alongside gc.alloc.rate and gc.alloc.rate.norm.
+#
+# Usage: ./run-benchmarks.sh [jmh regex] [extra jmh args...]
+#   ./run-benchmarks.sh                     # everything
+#   ./run-benchmarks.sh Decode              # only DecodeBenchmark
+#   ./run-benchmarks.sh PngEncode -p page=2480x3508.png
+
+set -euo pipefail
+
+cd "$(dirname "$0")"
+
+mvn -B -q package
+
+FILTER="${1:-.*}"
+shift || true
+
+java -Dbenchmark.pages.dir=target/pages -jar target/benchmarks.jar "$FILTER" \
+    -prof gc \
+    -rf json -rff target/jmh-result.json \
+    "$@"
+
+echo "Results written to target/jmh-result.json"
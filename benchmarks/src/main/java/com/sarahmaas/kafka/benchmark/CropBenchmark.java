@@ -0,0 +1,103 @@
+package com.sarahmaas.kafka.benchmark;
+
+import com.sarahmaas.kafka.image.HeaderBand;
+import com.sarahmaas.kafka.image.HeaderBandReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting the pixels of a header crop, as the encoder reads them. {@code getSubimage} and
+ * {@link HeaderBand#crop} only create views, so each benchmark copies the crop into a new image.
+ * The decode benchmarks time the whole path: full-page {@code ImageIO.read} plus
+ * {@code getSubimage}, as the original loop did, against decoding only the header band and
+ * cropping that. The copy benchmarks start from images decoded in setup and time the crop alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CropBenchmark {
+
+    // Widest band the crop loop can ask for
+    private static final double BAND_START_RATIO = 0.09;
+    private static final double HEADER_END_RATIO = 0.19;
+
+    @Param({"2480x3508.png", "4960x7016.png"})
+    public String page;
+
+    @Param({"0.13", "0.09"})
+    public double startRatio;
+
+    private File pageFile;
+    private HeaderBandReader headerBandReader;
+    private BufferedImage fullPage;
+    private HeaderBand headerBand;
+
+    @Setup
+    public void setUp() throws IOException {
+        pageFile = PageImages.resolve(page);
+        headerBandReader = new HeaderBandReader(1);
+        fullPage = ImageIO.read(pageFile);
+        headerBand = headerBandReader.read(pageFile, BAND_START_RATIO, HEADER_END_RATIO);
+    }
+
+    @Benchmark
+    public BufferedImage fullPageDecodeAndSubimage() throws IOException {
+        return copy(subimage(ImageIO.read(pageFile)));
+    }
+
+    @Benchmark
+    public BufferedImage headerBandDecodeAndCrop() throws IOException {
+        return copy(headerBandReader.read(pageFile, BAND_START_RATIO, HEADER_END_RATIO)
+                .crop(startRatio, HEADER_END_RATIO));
+    }
+
+    @Benchmark
+    public BufferedImage fullPageSubimageCopy() {
+        return copy(subimage(fullPage));
+    }
+
+    @Benchmark
+    public BufferedImage headerBandCropCopy() {
+        return copy(headerBand.crop(startRatio, HEADER_END_RATIO));
+    }
+
+    private BufferedImage subimage(BufferedImage image) {
+        int height = image.getHeight();
+        int top = (int) (height * startRatio);
+        int bottom = (int) (height * HEADER_END_RATIO);
+        return image.getSubimage(0, top, image.getWidth(), bottom - top);
+    }
+
+    /**
+     * Read every pixel of the crop, as the encoder's colour conversion does.
+     */
+    private static BufferedImage copy(BufferedImage crop) {
+        BufferedImage copy = new BufferedImage(crop.getWidth(), crop.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = copy.createGraphics();
+        try {
+            graphics.drawImage(crop, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return copy;
+    }
+}
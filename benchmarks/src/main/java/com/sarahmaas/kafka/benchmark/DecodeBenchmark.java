@@ -0,0 +1,62 @@
+package com.sarahmaas.kafka.benchmark;
+
+import com.sarahmaas.kafka.image.HeaderBand;
+import com.sarahmaas.kafka.image.HeaderBandReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-page {@code ImageIO.read} against decoding only the header band the crop search needs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DecodeBenchmark {
+
+    // Widest band the crop loop can ask for
+    private static final double BAND_START_RATIO = 0.09;
+    private static final double BAND_END_RATIO = 0.19;
+
+    @Param({"2480x3508.png", "2480x3508.jpg", "4960x7016.png", "4960x7016.jpg"})
+    public String page;
+
+    @Param({"1", "2"})
+    public int subsampling;
+
+    private File pageFile;
+    private HeaderBandReader headerBandReader;
+
+    @Setup
+    public void setUp() {
+        pageFile = PageImages.resolve(page);
+        headerBandReader = new HeaderBandReader(subsampling);
+    }
+
+    @Benchmark
+    public BufferedImage fullPageRead() throws IOException {
+        return ImageIO.read(pageFile);
+    }
+
+    @Benchmark
+    public HeaderBand headerBandRead() throws IOException {
+        return headerBandReader.read(pageFile, BAND_START_RATIO, BAND_END_RATIO);
+    }
+}
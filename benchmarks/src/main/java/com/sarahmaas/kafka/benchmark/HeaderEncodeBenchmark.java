@@ -0,0 +1,64 @@
+package com.sarahmaas.kafka.benchmark;
+
+import com.sarahmaas.kafka.image.EncodedImage;
+import com.sarahmaas.kafka.image.HeaderBandReader;
+import com.sarahmaas.kafka.image.HeaderImageEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The configurable upload encoding of the widest header crop. Setup prints the encoded size of
+ * each combination, so payload size and CPU cost can be read side by side.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class HeaderEncodeBenchmark {
+
+    @Param({"2480x3508.png", "4960x7016.png"})
+    public String page;
+
+    @Param({"color", "gray", "binary"})
+    public String colorMode;
+
+    @Param({"0", "40"})
+    public int targetTextHeight;
+
+    @Param({"png", "jpeg"})
+    public String format;
+
+    private BufferedImage headerCrop;
+    private HeaderImageEncoder encoder;
+
+    @Setup
+    public void setUp() throws IOException {
+        headerCrop = new HeaderBandReader(1).read(PageImages.resolve(page), 0.09, 0.19).getImage();
+        encoder = new HeaderImageEncoder(
+                HeaderImageEncoder.parse(HeaderImageEncoder.ColorMode.class, colorMode),
+                targetTextHeight,
+                HeaderImageEncoder.parse(HeaderImageEncoder.Format.class, format),
+                6, 0.85f);
+        System.out.println("bytes=" + encoder.encode(headerCrop).getBytes().length);
+    }
+
+    @Benchmark
+    public EncodedImage encode() throws IOException {
+        return encoder.encode(headerCrop);
+    }
+}
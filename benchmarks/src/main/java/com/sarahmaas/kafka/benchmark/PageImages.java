@@ -0,0 +1,27 @@
+package com.sarahmaas.kafka.benchmark;
+
+import java.io.File;
+
+/**
+ * Locates the pages written by {@link SyntheticPageGenerator}.
+ */
+final class PageImages {
+
+    // Overridable with -Dbenchmark.pages.dir when running the shaded jar from another directory
+    private static final String PAGES_DIR = System.getProperty("benchmark.pages.dir", "target/pages");
+
+    private PageImages() {
+    }
+
+    /**
+     * @param page Page size and format as {@code <width>x<height>.<format>}, e.g. {@code 2480x3508.png}
+     */
+    static File resolve(String page) {
+        File file = new File(PAGES_DIR, "page-" + page);
+        if (!file.isFile()) {
+            throw new IllegalStateException("Synthetic page not found: " + file
+                    + " (run 'mvn package' in the benchmarks module first)");
+        }
+        return file;
+    }
+}
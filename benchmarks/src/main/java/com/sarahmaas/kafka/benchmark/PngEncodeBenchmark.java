@@ -0,0 +1,72 @@
+package com.sarahmaas.kafka.benchmark;
+
+import com.sarahmaas.kafka.image.HeaderBandReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PNG encoding of a header crop, as sent to Azure. {@code quality} maps to the writer's compression
+ * quality: 1.0 is the fastest (least deflate effort) and 0.0 the smallest output; {@code default}
+ * is plain {@code ImageIO.write}, which is what the service does today.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class PngEncodeBenchmark {
+
+    @Param({"2480x3508.png", "4960x7016.png"})
+    public String page;
+
+    @Param({"default", "1.0", "0.5", "0.0"})
+    public String quality;
+
+    private BufferedImage headerCrop;
+
+    @Setup
+    public void setUp() throws IOException {
+        headerCrop = new HeaderBandReader(1).read(PageImages.resolve(page), 0.13, 0.19).getImage();
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        if ("default".equals(quality)) {
+            ImageIO.write(headerCrop, "PNG", buffer);
+            return buffer.toByteArray();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(buffer)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(Float.parseFloat(quality));
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(headerCrop, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return buffer.toByteArray();
+    }
+}
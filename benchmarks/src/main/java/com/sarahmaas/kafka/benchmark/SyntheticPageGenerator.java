@@ -0,0 +1,104 @@
+package com.sarahmaas.kafka.benchmark;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Writes synthetic scanned-book pages for the benchmarks: an off-white page with a chapter heading
+ * inside the header band the OCR crop searches, followed by body text lines and a little scanner noise.
+ * Runs at build time so every benchmark reads the same representative files.
+ */
+public final class SyntheticPageGenerator {
+
+    // A4 at 300 and 600 dpi
+    static final int[][] PAGE_SIZES = {{2480, 3508}, {4960, 7016}};
+    static final String[] FORMATS = {"png", "jpg"};
+
+    private SyntheticPageGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        File outputDir = new File(args.length > 0 ? args[0] : "target/pages");
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create directory: " + outputDir);
+        }
+
+        for (int[] size : PAGE_SIZES) {
+            BufferedImage page = null;
+            for (String format : FORMATS) {
+                File target = pageFile(outputDir, size[0], size[1], format);
+                if (target.isFile()) {
+                    continue;
+                }
+                if (page == null) {
+                    page = render(size[0], size[1]);
+                }
+                ImageIO.write(page, format, target);
+                System.out.println("Generated " + target);
+            }
+        }
+    }
+
+    static File pageFile(File directory, int width, int height, String format) {
+        return new File(directory, "page-" + width + "x" + height + "." + format);
+    }
+
+    private static BufferedImage render(int width, int height) {
+        BufferedImage page = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = page.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setColor(new Color(246, 242, 232));
+            graphics.fillRect(0, 0, width, height);
+
+            // Chapter heading inside the 0.09 - 0.19 header band
+            graphics.setColor(new Color(30, 30, 30));
+            graphics.setFont(new Font(Font.SERIF, Font.BOLD, height / 45));
+            String heading = "CHAPTER 12";
+            int headingWidth = graphics.getFontMetrics().stringWidth(heading);
+            graphics.drawString(heading, (width - headingWidth) / 2, (int) (height * 0.14));
+
+            // Body text
+            Random random = new Random(42);
+            graphics.setFont(new Font(Font.SERIF, Font.PLAIN, height / 110));
+            int lineHeight = height / 70;
+            int margin = width / 10;
+            for (int y = (int) (height * 0.22); y < height - margin; y += lineHeight) {
+                graphics.drawString(randomLine(random, 70), margin, y);
+            }
+
+            // Scanner speckle so the encoders see realistic entropy
+            graphics.setStroke(new BasicStroke(1));
+            for (int i = 0; i < width * height / 2000; i++) {
+                int grey = 150 + random.nextInt(80);
+                graphics.setColor(new Color(grey, grey, grey));
+                int x = random.nextInt(width);
+                int y = random.nextInt(height);
+                graphics.drawLine(x, y, x, y);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return page;
+    }
+
+    private static String randomLine(Random random, int length) {
+        StringBuilder line = new StringBuilder(length);
+        while (line.length() < length) {
+            int wordLength = 2 + random.nextInt(8);
+            for (int i = 0; i < wordLength; i++) {
+                line.append((char) ('a' + random.nextInt(26)));
+            }
+            line.append(' ');
+        }
+        return line.toString();
+    }
+}
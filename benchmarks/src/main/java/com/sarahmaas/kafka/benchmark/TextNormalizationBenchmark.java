@@ -0,0 +1,35 @@
+package com.sarahmaas.kafka.benchmark;
+
+import com.sarahmaas.kafka.consumer.ExtractedTextNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trim, unquote and truncate applied to OCR text before a page is stored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextNormalizationBenchmark {
+
+    @Param({"CHAPTER 12", "  \"CHAPTER TWELVE\"  ", "\"A COURT OF THORNS AND ROSES\n CHAPTER 12\""})
+    public String extractedText;
+
+    @Benchmark
+    public String normalizeAndTruncate() {
+        return ExtractedTextNormalizer.truncateForStorage(ExtractedTextNormalizer.normalize(extractedText));
+    }
+}
@@ -1,11 +1,16 @@
 package com.sarahmaas.kafka;
 
+import com.sarahmaas.kafka.config.NativeImageHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableKafka
+@EnableScheduling
+@ImportRuntimeHints(NativeImageHints.class)
 public class BookEventsConsumerApplication {
     
     public static void main(String[] args) {
@@ -1,18 +1,34 @@
 package com.sarahmaas.kafka.config;
 
+import com.sarahmaas.kafka.consumer.AsyncOffsetCommitter;
+import com.sarahmaas.kafka.consumer.FailedPageRouter;
+import com.sarahmaas.kafka.consumer.FlowController;
+import com.sarahmaas.kafka.consumer.ProcessedPageFilter;
+import com.sarahmaas.kafka.model.KafkaMessage;
+import com.sarahmaas.kafka.serde.KafkaMessageDeserializer;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 @EnableKafka
 @Configuration
@@ -35,14 +51,47 @@ public class KafkaConsumerConfig {
     
     @Value("${spring.kafka.consumer.properties.max.poll.interval.ms}")
     private int maxPollInterval;
+
+    @Value("${book-events.batch.max-poll-records:100}")
+    private int batchMaxPollRecords;
+
+    @Value("${book-events.parallel.max-poll-records:100}")
+    private int parallelMaxPollRecords;
+
+    @Value("${book-events.flow.idle-commit-interval-ms:1000}")
+    private long idleCommitInterval;
+
+    @Value("${book-events.writer.enabled:true}")
+    private boolean asyncPageWrites;
+
+    private final Environment environment;
+    private final ProcessedPageFilter processedPageFilter;
+    private final AsyncOffsetCommitter asyncOffsetCommitter;
+    private final FailedPageRouter failedPageRouter;
+    private final FlowController flowController;
+
+    public KafkaConsumerConfig(Environment environment,
+                               ProcessedPageFilter processedPageFilter,
+                               AsyncOffsetCommitter asyncOffsetCommitter,
+                               FailedPageRouter failedPageRouter,
+                               FlowController flowController) {
+        this.environment = environment;
+        this.processedPageFilter = processedPageFilter;
+        this.asyncOffsetCommitter = asyncOffsetCommitter;
+        this.failedPageRouter = failedPageRouter;
+        this.flowController = flowController;
+    }
     
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, KafkaMessage> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // Page events are decoded from the record bytes, binary or JSON; a value that cannot be
+        // decoded is delivered as null with the failure in a header instead of failing the poll
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, KafkaMessageDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, autoOffsetReset);
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false); // Manual commit with acknowledgment
         props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, sessionTimeout);
@@ -55,20 +104,150 @@ public class KafkaConsumerConfig {
     }
     
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory = 
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaMessage> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, KafkaMessage> factory = 
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        applyListenerTaskExecutor(factory);
+
+        // Refresh the already-extracted page filter whenever partitions move
+        factory.getContainerProperties().setConsumerRebalanceListener(processedPageFilter);
         
         // Enable manual acknowledgment
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        // Records are acknowledged once the page writer has persisted them, which can be after
+        // later records of the partition were acknowledged; the container commits only the gap-free prefix
+        factory.getContainerProperties().setAsyncAcks(asyncPageWrites);
+
+        // A poll is broken off with an immediate pause once the next record would overrun the
+        // poll budget; the rest of the poll is kept in memory and processed after one paused poll
+        factory.setRecordInterceptor(flowController.recordInterceptor());
+        factory.getContainerProperties().setPauseImmediate(true);
         
         // Set concurrency to 10 (can be overridden in @KafkaListener)
         factory.setConcurrency(10);
         
-        // Error handling
-        factory.setCommonErrorHandler(new org.springframework.kafka.listener.DefaultErrorHandler());
+        // Error handling; a record listener never sees a value that could not be decoded, so
+        // the error handler routes it to the retry topic, which parks it on the DLT
+        factory.setCommonErrorHandler(new DefaultErrorHandler((record, e) -> failedPageRouter.route(record, e)));
         
         return factory;
     }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaMessage> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, KafkaMessage> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        applyListenerTaskExecutor(factory);
+
+        // Refresh the already-extracted page filter whenever partitions move, and commit
+        // durable offsets before revoked partitions are handed over
+        factory.getContainerProperties().setConsumerRebalanceListener(trackedOffsetsRebalanceListener());
+
+        // Deliver each poll as a List<ConsumerRecord>
+        factory.setBatchListener(true);
+
+        // Offsets of durable pages are committed on the consumer thread by AsyncOffsetCommitter,
+        // from listener calls and from idle events; the container itself never commits
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setIdleEventInterval(idleCommitInterval);
+
+        Properties consumerOverrides = new Properties();
+        consumerOverrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchMaxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerOverrides);
+
+        factory.setConcurrency(10);
+
+        // Failed pages are routed by the listener; should the listener itself throw, the batch is
+        // retried and then every record of it is routed to the retry topic, which parks it on the DLT
+        factory.setCommonErrorHandler(new DefaultErrorHandler((record, e) -> failedPageRouter.route(record, e)));
+
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaMessage> parallelKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, KafkaMessage> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        applyListenerTaskExecutor(factory);
+
+        // Refresh the already-extracted page filter whenever partitions move, and commit
+        // completed offsets before revoked partitions are handed over
+        factory.getContainerProperties().setConsumerRebalanceListener(trackedOffsetsRebalanceListener());
+
+        // The listener hands each poll to the key-ordered worker pool and returns
+        factory.setBatchListener(true);
+
+        // Completed offsets are committed on the consumer thread by AsyncOffsetCommitter, from
+        // listener calls and from idle events while the container is paused or the topic is quiet
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setIdleEventInterval(idleCommitInterval);
+
+        Properties consumerOverrides = new Properties();
+        consumerOverrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(parallelMaxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerOverrides);
+
+        factory.setConcurrency(10);
+
+        // Failed pages are routed by the workers; should the listener itself throw, the batch is
+        // retried and then every record of it is routed to the retry topic
+        factory.setCommonErrorHandler(new DefaultErrorHandler((record, e) -> failedPageRouter.route(record, e)));
+
+        return factory;
+    }
+
+    /**
+     * Record listener for the retry topics. {@code @RetryableTopic} installs its own error handler
+     * that forwards failures to the next back-off topic or the DLT; with RECORD acks the container
+     * commits each record once it has succeeded or been forwarded.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, KafkaMessage> retryKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, KafkaMessage> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        applyListenerTaskExecutor(factory);
+
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.RECORD);
+
+        return factory;
+    }
+
+    /**
+     * Rebalance listener for the containers whose offsets {@link AsyncOffsetCommitter} commits.
+     */
+    private ConsumerAwareRebalanceListener trackedOffsetsRebalanceListener() {
+        return new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                asyncOffsetCommitter.onPartitionsRevokedBeforeCommit(consumer, partitions);
+            }
+
+            @Override
+            public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                asyncOffsetCommitter.onPartitionsLost(consumer, partitions);
+            }
+
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                processedPageFilter.onPartitionsAssigned(consumer, partitions);
+            }
+        };
+    }
+
+    /**
+     * Run the listener consumer threads, and with them the OCR and Mongo calls made in record
+     * and batch mode, on virtual threads when {@code spring.threads.virtual.enabled} is set on
+     * a Java 21 runtime. Otherwise the container keeps its default platform threads.
+     */
+    private void applyListenerTaskExecutor(ConcurrentKafkaListenerContainerFactory<String, KafkaMessage> factory) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("kafka-listener-vt-");
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
+    }
 }
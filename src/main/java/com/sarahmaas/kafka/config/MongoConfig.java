@@ -5,16 +5,13 @@ import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import lombok.RequiredArgsConstructor;
+import com.sarahmaas.kafka.service.SecretBootstrap;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
-import org.springframework.web.client.RestTemplate;
-
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -26,10 +23,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class MongoConfig extends AbstractMongoClientConfiguration {
     
-    private final RestTemplateBuilder restTemplateBuilder;
-
-    @Value("${credentials.uri}")
-    private String credentialsUrl;
+    private final SecretBootstrap secretBootstrap;
         
     @Override
     protected String getDatabaseName() {
@@ -37,26 +31,14 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
     }
     
     /**
-     * Fetches MongoDB credentials from a remote HTTP endpoint
+     * Fetches MongoDB credentials, fetched by {@link SecretBootstrap} alongside the Vault secrets
      * @return Map containing username, password, and url
      */
     private Map<String, String> fetchMongoCredentials() {
         try {
-            RestTemplate restTemplate = restTemplateBuilder.build();
-            log.info("Fetching MongoDB credentials from: {}", credentialsUrl);
-
-            @SuppressWarnings("unchecked")
-            Map<String, String> credentials = restTemplate.getForObject(credentialsUrl, Map.class);
-
-            if (credentials == null || credentials.isEmpty()) {
-                throw new RuntimeException("No credentials returned from endpoint");
-            }
-
-            log.debug("Successfully fetched MongoDB credentials = {}", credentials);
-            return credentials;
-            
+            return secretBootstrap.mongoCredentials();
         } catch (Exception e) {
-            log.error("Error fetching MongoDB credentials from {}: {}", credentialsUrl, e.getMessage());
+            log.error("Error fetching MongoDB credentials: {}", e.getMessage());
             throw new RuntimeException("Failed to fetch MongoDB credentials", e);
         }
     }
@@ -0,0 +1,54 @@
+package com.sarahmaas.kafka.config;
+
+import com.sarahmaas.kafka.model.Chapter;
+import com.sarahmaas.kafka.model.KafkaMessage;
+import com.sarahmaas.kafka.model.OcrCacheEntry;
+import com.sarahmaas.kafka.model.PageExtraction;
+import com.sarahmaas.kafka.model.PageHeader;
+import com.sarahmaas.kafka.serde.KafkaMessageDeserializer;
+import com.sarahmaas.kafka.serde.KafkaMessageSerializer;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * Reflection, proxy and resource hints for the native image ({@code -Pnative}) that Spring AOT
+ * cannot infer:
+ * <ul>
+ *     <li>Lombok-generated accessors and constructors of the models, which Jackson and the Mongo
+ *     mapping layer reach by reflection</li>
+ *     <li>the Azure Image Analysis REST interface, which azure-core implements with a JDK proxy,
+ *     and the SDK's version properties; azure-core and its Netty client ship their own
+ *     configuration</li>
+ *     <li>the private Jackson payloads of the secret lookups</li>
+ *     <li>the page event serializer and deserializer, which Kafka instantiates from their class names</li>
+ * </ul>
+ * Tesseract (tess4j over JNA) is not covered; keep {@code ocr.local.enabled=false} in native builds.
+ */
+public class NativeImageHints implements RuntimeHintsRegistrar {
+
+    private static final String IMAGE_ANALYSIS_SERVICE =
+            "com.azure.ai.vision.imageanalysis.implementation.ImageAnalysisClientImpl$ImageAnalysisClientService";
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> model : new Class<?>[] {
+                KafkaMessage.class, PageExtraction.class, PageHeader.class, Chapter.class,
+                OcrCacheEntry.class}) {
+            hints.reflection().registerType(model,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+        }
+        hints.reflection().registerType(KafkaMessageSerializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(KafkaMessageDeserializer.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerType(
+                TypeReference.of("com.sarahmaas.kafka.service.VaultTokenService$VaultTokenRequest"),
+                MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+
+        hints.reflection().registerType(TypeReference.of(IMAGE_ANALYSIS_SERVICE), MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.proxies().registerJdkProxy(TypeReference.of(IMAGE_ANALYSIS_SERVICE));
+        hints.resources().registerPattern("azure-ai-vision-imageanalysis.properties");
+    }
+}
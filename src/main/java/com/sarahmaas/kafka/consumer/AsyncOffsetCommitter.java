@@ -0,0 +1,85 @@
+package com.sarahmaas.kafka.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Commits offsets for the parallel and batch listeners, whose records finish on worker or writer
+ * threads after the listener call that dispatched them has returned. Those threads only mark
+ * records complete; the contiguous completed offsets are committed on the consumer thread, from
+ * the next listener call or, while the container is paused or the topic is quiet, from its idle
+ * events. Only one of the two listeners runs at a time.
+ */
+@Slf4j
+@Component
+public class AsyncOffsetCommitter implements ConsumerAwareRebalanceListener {
+
+    private static final String PARALLEL_LISTENER_ID = "bookEventsParallelListener";
+    private static final String BATCH_LISTENER_ID = "bookEventsBatchListener";
+
+    private final OffsetTracker offsetTracker = new OffsetTracker();
+
+    public void dispatched(ConsumerRecord<?, ?> record) {
+        offsetTracker.dispatched(record);
+    }
+
+    public void completed(ConsumerRecord<?, ?> record) {
+        offsetTracker.completed(record);
+    }
+
+    /**
+     * Commit the completed offsets of the partitions this consumer owns. Must be called on the
+     * consumer thread.
+     */
+    public void commit(Consumer<?, ?> consumer) {
+        commit(consumer, consumer.assignment());
+    }
+
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        String listenerId = event.getListenerId();
+        if ((listenerId.startsWith(PARALLEL_LISTENER_ID) || listenerId.startsWith(BATCH_LISTENER_ID))
+                && event.getConsumer() != null) {
+            commit(event.getConsumer());
+        }
+    }
+
+    /**
+     * Commit what has completed before the partitions move, then forget them: records still in
+     * flight will be redelivered to the new owner and upserted again.
+     */
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        commit(consumer, partitions);
+        offsetTracker.forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        offsetTracker.forget(partitions);
+    }
+
+    private void commit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = offsetTracker.committable(partitions);
+        if (offsets.isEmpty()) {
+            return;
+        }
+        try {
+            consumer.commitSync(offsets);
+            offsetTracker.committed(offsets);
+        } catch (Exception e) {
+            // Offered again on the next listener call or idle event
+            log.warn("Could not commit offsets {}: {}", offsets, e.getMessage());
+        }
+    }
+}
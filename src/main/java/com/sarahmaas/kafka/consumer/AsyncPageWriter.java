@@ -0,0 +1,189 @@
+package com.sarahmaas.kafka.consumer;
+
+import com.sarahmaas.kafka.model.PageExtraction;
+import com.sarahmaas.kafka.repository.PageExtractionRepository;
+import com.sarahmaas.kafka.service.ChapterIndex;
+import com.sarahmaas.kafka.service.PageHeaderCache;
+import com.sarahmaas.kafka.service.PipelineMetrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistence stage that runs beside OCR instead of after it. Listener threads hand finished pages
+ * to a bounded queue and move on to the next OCR call; a single writer thread drains whatever has
+ * queued up, up to {@code book-events.writer.max-batch} pages, into one unordered bulk upsert.
+ * Each page's future completes once its write is acknowledged by Mongo, and callers acknowledge
+ * the Kafka offset only then. Writes complete in submission order.
+ */
+@Slf4j
+@Component
+public class AsyncPageWriter {
+
+    private final PageExtractionRepository repository;
+    private final ProcessedPageFilter processedPageFilter;
+    private final PageHeaderCache pageHeaderCache;
+    private final ChapterIndex chapterIndex;
+    private final PipelineMetrics pipelineMetrics;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final BlockingQueue<PendingWrite> queue;
+    private final Thread writer;
+
+    private final AtomicLong pagesWritten = new AtomicLong();
+    private final AtomicLong bulkWrites = new AtomicLong();
+    private final AtomicLong failedPages = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private volatile boolean running = true;
+
+    public AsyncPageWriter(PageExtractionRepository repository,
+                           ProcessedPageFilter processedPageFilter,
+                           PageHeaderCache pageHeaderCache,
+                           ChapterIndex chapterIndex,
+                           PipelineMetrics pipelineMetrics,
+                           @Value("${book-events.writer.enabled:true}") boolean enabled,
+                           @Value("${book-events.writer.max-in-flight:256}") int maxInFlight,
+                           @Value("${book-events.writer.max-batch:50}") int maxBatch) {
+        this.repository = repository;
+        this.processedPageFilter = processedPageFilter;
+        this.pageHeaderCache = pageHeaderCache;
+        this.chapterIndex = chapterIndex;
+        this.pipelineMetrics = pipelineMetrics;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.queue = new ArrayBlockingQueue<>(maxInFlight);
+        this.writer = new Thread(this::drain, "page-writer");
+        this.writer.setDaemon(true);
+        if (enabled) {
+            writer.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a page for writing, blocking while {@code max-in-flight} writes are already pending.
+     *
+     * @return Completes once the page is durable, or exceptionally if the write failed
+     */
+    public CompletableFuture<Void> submit(PageExtraction extraction) throws InterruptedException {
+        PendingWrite write = new PendingWrite(extraction, pipelineMetrics.current(), pipelineMetrics.start());
+        queue.put(write);
+        return write.result;
+    }
+
+    public Map<String, Object> getStats() {
+        long writes = bulkWrites.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("inFlight", queue.size());
+        stats.put("maxInFlight", queue.size() + queue.remainingCapacity());
+        stats.put("pagesWritten", pagesWritten.get());
+        stats.put("failedPages", failedPages.get());
+        stats.put("bulkWrites", writes);
+        stats.put("meanBatchSize", writes == 0 ? 0.0 : (double) (pagesWritten.get() + failedPages.get()) / writes);
+        stats.put("meanWriteMillis", writes == 0 ? 0.0 : TimeUnit.NANOSECONDS.toMicros(writeNanos.get()) / 1000.0 / writes);
+        return stats;
+    }
+
+    /**
+     * Stop the writer thread once the pages still queued have been written.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void drain() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+            } catch (InterruptedException e) {
+                // Shutdown: fall through and flush whatever is still queued
+                queue.drainTo(batch, maxBatch);
+                if (batch.isEmpty()) {
+                    continue;
+                }
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        List<PageExtraction> extractions = new ArrayList<>(batch.size());
+        batch.forEach(write -> extractions.add(write.extraction));
+
+        long start = System.nanoTime();
+        try {
+            repository.bulkUpsert(extractions);
+        } catch (RuntimeException e) {
+            log.error("Bulk write of {} pages failed: {}", batch.size(), e.getMessage(), e);
+            failedPages.addAndGet(batch.size());
+            bulkWrites.incrementAndGet();
+            for (PendingWrite write : batch) {
+                PipelineMetrics.Context previous = pipelineMetrics.bind(write.metricsContext);
+                try {
+                    pipelineMetrics.failure(PipelineMetrics.MONGO_SAVE);
+                    pipelineMetrics.stop(write.sample, PipelineMetrics.MONGO_SAVE);
+                } finally {
+                    pipelineMetrics.restore(previous);
+                }
+                write.result.completeExceptionally(e);
+            }
+            return;
+        }
+        writeNanos.addAndGet(System.nanoTime() - start);
+        bulkWrites.incrementAndGet();
+        pagesWritten.addAndGet(batch.size());
+
+        for (PendingWrite write : batch) {
+            processedPageFilter.markProcessed(write.extraction.getBookId(), write.extraction.getPageNum());
+            pageHeaderCache.saved(write.extraction);
+            chapterIndex.saved(write.extraction);
+            // Enqueue to durable, so queueing behind other writes is part of the reported latency
+            PipelineMetrics.Context previous = pipelineMetrics.bind(write.metricsContext);
+            try {
+                pipelineMetrics.stop(write.sample, PipelineMetrics.MONGO_SAVE);
+            } finally {
+                pipelineMetrics.restore(previous);
+            }
+            write.result.complete(null);
+        }
+    }
+
+    private static final class PendingWrite {
+        private final PageExtraction extraction;
+        private final PipelineMetrics.Context metricsContext;
+        private final Timer.Sample sample;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        private PendingWrite(PageExtraction extraction, PipelineMetrics.Context metricsContext, Timer.Sample sample) {
+            this.extraction = extraction;
+            this.metricsContext = metricsContext;
+            this.sample = sample;
+        }
+    }
+}
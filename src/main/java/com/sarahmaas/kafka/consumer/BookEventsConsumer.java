@@ -1,29 +1,58 @@
 package com.sarahmaas.kafka.consumer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sarahmaas.kafka.image.PreparedHeader;
 import com.sarahmaas.kafka.model.KafkaMessage;
 import com.sarahmaas.kafka.model.PageExtraction;
 import com.sarahmaas.kafka.repository.PageExtractionRepository;
-import com.sarahmaas.kafka.service.AzureOcrService;
-import com.sarahmaas.kafka.service.CredentialsDecryptorService;
+import com.sarahmaas.kafka.serde.KafkaMessageDeserializer;
+import com.sarahmaas.kafka.service.ChapterIndex;
+import com.sarahmaas.kafka.service.HeaderPreparer;
+import com.sarahmaas.kafka.service.OcrEngine;
+import com.sarahmaas.kafka.service.OcrResult;
+import com.sarahmaas.kafka.service.PageHeaderCache;
+import com.sarahmaas.kafka.service.PipelineMetrics;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.DltStrategy;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class BookEventsConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(BookEventsConsumer.class);
+    private static final LogAccessor DESERIALIZER_LOG = new LogAccessor(BookEventsConsumer.class);
+
+    // Listener tag of the pipeline metrics
+    private static final String RECORD_LISTENER = "record";
+    private static final String BATCH_LISTENER = "batch";
+    private static final String PARALLEL_LISTENER = "parallel";
+    private static final String RETRY_LISTENER = "retry";
 
     private final PageExtractionRepository repository;
-    private final ObjectMapper objectMapper;
 
     private final AtomicLong messagesProcessed = new AtomicLong(0);
 
@@ -40,76 +69,560 @@ public class BookEventsConsumer {
     private String groupId;
 
     @Autowired
-    AzureOcrService azureOcrService;
+    HeaderPreparer headerPreparer;
+
+    @Autowired
+    OcrEngine ocrEngine;
+
+    @Autowired
+    KeyOrderedExecutor keyOrderedExecutor;
+
+    @Autowired
+    ProcessedPageFilter processedPageFilter;
+
+    @Autowired
+    PagePrefetcher pagePrefetcher;
+
+    @Autowired
+    PipelineMetrics pipelineMetrics;
+
+    @Autowired
+    FlowController flowController;
+
+    @Autowired
+    AsyncOffsetCommitter asyncOffsetCommitter;
+
+    @Autowired
+    FailedPageRouter failedPageRouter;
+
+    @Autowired
+    AsyncPageWriter asyncPageWriter;
+
+    @Autowired
+    PageHeaderCache pageHeaderCache;
+
+    @Autowired
+    ChapterIndex chapterIndex;
 
-    public BookEventsConsumer(PageExtractionRepository repository,
-                              ObjectMapper objectMapper) {
+    public BookEventsConsumer(PageExtractionRepository repository) {
         this.repository = repository;
-        this.objectMapper = objectMapper;
     }
 
     @KafkaListener(
+            id = "bookEventsRecordListener",
             topics = "${spring.kafka.topic}",
             groupId = "${spring.kafka.consumer.group-id}",
             concurrency = "${spring.kafka.listener.concurrency}",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{'${book-events.consumer.mode:record}' == 'record'}"
     )
-    public void consumeMessage(ConsumerRecord<String, String> record, Acknowledgment ack) {
+    public void consumeMessage(ConsumerRecord<String, KafkaMessage> record, Acknowledgment ack) {
         long startTime = System.currentTimeMillis();
         String workerId = Thread.currentThread().getName() + "-" + Thread.currentThread().getId();
+        Timer.Sample endToEnd = pipelineMetrics.start();
 
+        PipelineMetrics.Context previous = pipelineMetrics.bind(RECORD_LISTENER, record.partition());
         try {
             log.info("Worker {} received message from partition: {} at offset: {}",
                     workerId.substring(workerId.indexOf("#")+1), record.partition(), record.offset());
 
-            KafkaMessage message = objectMapper.readValue(record.value(), KafkaMessage.class);
+            PageExtraction extraction = extractPage(record);
+            if (extraction == null) {
+                if (ack != null) {
+                    ack.acknowledge();
+                }
+                return;
+            }
 
-            log.info("Processing page: {} for image path: {}",
-                    message.getPageNum(), " - " + message.getImagePath());
+            // Acknowledged once the page is durable; the next record's OCR overlaps the write
+            PipelineMetrics.Context metricsContext = pipelineMetrics.current();
+            persist(extraction).whenComplete((written, error) -> {
+                PipelineMetrics.Context writePrevious = pipelineMetrics.bind(metricsContext);
+                try {
+                    if (error != null) {
+                        log.error("Error saving page {} from partition {} at offset {}: {}",
+                                extraction.getPageNum(), record.partition(), record.offset(), error.getMessage(), error);
+                        routeFailed(record, cause(error));
+                    } else {
+                        pipelineMetrics.stop(endToEnd, PipelineMetrics.END_TO_END);
+                        long processingTime = System.currentTimeMillis() - startTime;
+                        long totalProcessed = messagesProcessed.incrementAndGet();
 
-            String extractedText = azureOcrService.readTextFromCroppedOcrImage(message.getImagePath());
-            // Normalize extracted text: trim and strip surrounding quotes if present
-            if (extractedText != null) {
-                    extractedText = extractedText.trim();
-                    if (extractedText.length() >= 2 && extractedText.startsWith("\"") && extractedText.endsWith("\"")) {
-                            extractedText = extractedText.substring(1, extractedText.length() - 1);
+                        log.info("Successfully processed message for page {} in {}ms. Total processed: {}",
+                                extraction.getPageNum(), processingTime, totalProcessed);
                     }
+                } finally {
+                    pipelineMetrics.restore(writePrevious);
+                }
+                if (ack != null) {
+                    ack.acknowledge();
+                }
+            });
+
+        } catch (Exception e) {
+            log.error("Error processing message from partition {} at offset {}: {}",
+                    record.partition(), record.offset(), e.getMessage(), e);
+
+            // Retried out of band; if the hand-off itself fails the container retries in place
+            failedPageRouter.route(record, e);
+            if (ack != null) {
+                ack.acknowledge();
             }
+        } finally {
+            pipelineMetrics.restore(previous);
+        }
+    }
+
+    /**
+     * Batch mode: OCR every record of the poll, with the images of the following pages prepared
+     * ahead by {@link PagePrefetcher} and every page started before any is awaited, then hand the pages to {@link AsyncPageWriter} and return
+     * to the next poll while they are written. A record's offset is committed by
+     * {@link AsyncOffsetCommitter} on this consumer thread, from later calls and idle events, once
+     * every page of its poll is durable. With the writer disabled the poll is persisted with a
+     * single unordered bulk upsert before returning.
+     * When recent OCR latency means the whole poll would not finish within the poll budget, only
+     * the records {@link FlowController#pollBudget} allows are processed and the rest are sought
+     * back for the next poll.
+     */
+    @KafkaListener(
+            id = "bookEventsBatchListener",
+            topics = "${spring.kafka.topic}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            concurrency = "${spring.kafka.listener.concurrency}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{'${book-events.consumer.mode:record}' == 'batch'}"
+    )
+    public void consumeBatch(List<ConsumerRecord<String, KafkaMessage>> polled, Consumer<?, ?> consumer)
+            throws InterruptedException {
+        asyncOffsetCommitter.commit(consumer);
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        String workerId = Thread.currentThread().getName() + "-" + Thread.currentThread().getId();
 
-            log.debug("Extracted text for page {}: {}...",
-                            message.getPageNum(),
-                            extractedText != null && extractedText.length() > 5
-                                            ? extractedText.substring(0, Math.min(5, extractedText.length()))
-                                            : "");
+        int budget = flowController.pollBudget(polled.size());
+        List<ConsumerRecord<String, KafkaMessage>> records = polled.subList(0, budget);
 
-            PageExtraction extraction = PageExtraction.builder()
-                    .bookId(message.getBookId())
-                    .pageNum(message.getPageNum())
-                    .extractedText(extractedText != null && extractedText.length() > 15
-                            ? extractedText.substring(0, 15)
-                            : extractedText)
-                    .build();
+        log.info("Worker {} received batch of {} messages, processing {}",
+                workerId.substring(workerId.indexOf("#")+1), polled.size(), records.size());
 
-            repository.save(extraction);
+        Timer.Sample endToEnd = pipelineMetrics.start();
 
-            if (ack != null) {
-                ack.acknowledge();
+        // Deserialize and drop already-extracted pages first so only real work is prefetched
+        List<KafkaMessage> messages = new ArrayList<>(records.size());
+        List<ConsumerRecord<String, KafkaMessage>> messageRecords = new ArrayList<>(records.size());
+        List<PipelineMetrics.Context> metricsContexts = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, KafkaMessage> record : records) {
+            PipelineMetrics.Context previous = pipelineMetrics.bind(BATCH_LISTENER, record.partition());
+            try {
+                KafkaMessage message = deserialize(record);
+                if (!isAlreadyExtracted(message)) {
+                    messages.add(message);
+                    messageRecords.add(record);
+                    metricsContexts.add(pipelineMetrics.current());
+                }
+            } catch (Exception e) {
+                log.error("Error processing message from partition {} at offset {}: {}",
+                        record.partition(), record.offset(), e.getMessage(), e);
+                failedPageRouter.route(record, e);
+            } finally {
+                pipelineMetrics.restore(previous);
             }
+        }
 
-            long processingTime = System.currentTimeMillis() - startTime;
-            long totalProcessed = messagesProcessed.incrementAndGet();
+        List<PageExtraction> extractions = new ArrayList<>(messages.size());
+        List<ConsumerRecord<String, KafkaMessage>> extractionRecords = new ArrayList<>(messages.size());
+        List<PipelineMetrics.Context> extractionContexts = new ArrayList<>(messages.size());
+        List<String> imagePaths = new ArrayList<>(messages.size());
+        messages.forEach(message -> imagePaths.add(message.getImagePath()));
+        // Start every page before waiting on any, so engines that share calls between pages
+        // (ocr.mode=composite) fill their calls from this poll instead of waiting out a flush
+        List<CompletableFuture<OcrResult>> recognitions = new ArrayList<>(messages.size());
+        try (PagePrefetcher.Window prefetchWindow = pagePrefetcher.open(imagePaths, metricsContexts)) {
+            for (int i = 0; i < messages.size(); i++) {
+                KafkaMessage message = messages.get(i);
+                PipelineMetrics.Context previous = pipelineMetrics.bind(metricsContexts.get(i));
+                try {
+                    log.info("Processing page: {} for image path: {}",
+                            message.getPageNum(), " - " + message.getImagePath());
+                    PreparedHeader header = prefetchWindow.next();
+                    recognitions.add(ocrEngine.recognizeAsync(header));
+                } catch (Exception e) {
+                    recognitions.add(CompletableFuture.failedFuture(e));
+                } finally {
+                    pipelineMetrics.restore(previous);
+                }
+            }
+        }
+        for (int i = 0; i < messages.size(); i++) {
+            KafkaMessage message = messages.get(i);
+            PipelineMetrics.Context previous = pipelineMetrics.bind(metricsContexts.get(i));
+            try {
+                extractions.add(buildExtraction(message, recognitions.get(i).join().getText()));
+                extractionRecords.add(messageRecords.get(i));
+                extractionContexts.add(metricsContexts.get(i));
+            } catch (Exception e) {
+                Exception failure = cause(e);
+                log.error("Error processing page {} of book {}: {}",
+                        message.getPageNum(), message.getBookId(), failure.getMessage(), failure);
+                failedPageRouter.route(messageRecords.get(i), failure);
+            } finally {
+                pipelineMetrics.restore(previous);
+            }
+        }
 
-            log.info("Successfully processed message for page {} in {}ms. Total processed: {}",
-                    message.getPageNum(), processingTime, totalProcessed);
+        CompletableFuture<Void> durable = asyncPageWriter.isEnabled()
+                ? writeQueued(extractions, extractionRecords, extractionContexts, endToEnd)
+                : writeBulk(extractions, extractionRecords, extractionContexts, endToEnd);
+        // Track the poll only once its writes are under way; routed and filtered records
+        // complete with the rest of the poll
+        records.forEach(asyncOffsetCommitter::dispatched);
+        durable.whenComplete((written, error) -> records.forEach(asyncOffsetCommitter::completed));
 
-        } catch (Exception e) {
-            log.error("Error processing message from partition {} at offset {}: {}",
-                    record.partition(), record.offset(), e.getMessage(), e);
+        if (records.size() < polled.size()) {
+            flowController.truncatePoll(consumer, polled.subList(budget, polled.size()));
+        }
+        asyncOffsetCommitter.commit(consumer);
+        flowController.recordProcessingTime(System.nanoTime() - startNanos, records.size());
 
-            if (ack != null) {
-                ack.acknowledge();
+        long processingTime = System.currentTimeMillis() - startTime;
+        long totalProcessed = messagesProcessed.addAndGet(extractions.size());
+
+        log.info("Successfully processed batch of {} pages in {}ms. Total processed: {}",
+                extractions.size(), processingTime, totalProcessed);
+    }
+
+    /**
+     * Hand the pages of a poll to {@link AsyncPageWriter}, which may coalesce them with pages of
+     * other polls. Pages whose write fails are routed for retry.
+     *
+     * @return Completes once every page is durable or routed
+     */
+    private CompletableFuture<Void> writeQueued(List<PageExtraction> extractions,
+                                                List<ConsumerRecord<String, KafkaMessage>> extractionRecords,
+                                                List<PipelineMetrics.Context> extractionContexts,
+                                                Timer.Sample endToEnd) throws InterruptedException {
+        CompletableFuture<?>[] writes = new CompletableFuture<?>[extractions.size()];
+        for (int i = 0; i < extractions.size(); i++) {
+            ConsumerRecord<String, KafkaMessage> record = extractionRecords.get(i);
+            PipelineMetrics.Context metricsContext = extractionContexts.get(i);
+            writes[i] = asyncPageWriter.submit(extractions.get(i)).handle((written, error) -> {
+                PipelineMetrics.Context previous = pipelineMetrics.bind(metricsContext);
+                try {
+                    if (error != null) {
+                        log.error("Error saving page from partition {} at offset {}: {}",
+                                record.partition(), record.offset(), error.getMessage(), error);
+                        routeFailed(record, cause(error));
+                    } else {
+                        pipelineMetrics.stop(endToEnd, PipelineMetrics.END_TO_END);
+                    }
+                } finally {
+                    pipelineMetrics.restore(previous);
+                }
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(writes);
+    }
+
+    /**
+     * Persist the whole poll with a single unordered bulk upsert on this thread. If the write
+     * fails, every page of the poll is routed for retry.
+     *
+     * @return Completes once every page is durable or routed
+     */
+    private CompletableFuture<Void> writeBulk(List<PageExtraction> extractions,
+                                              List<ConsumerRecord<String, KafkaMessage>> extractionRecords,
+                                              List<PipelineMetrics.Context> extractionContexts,
+                                              Timer.Sample endToEnd) {
+        int written;
+        PipelineMetrics.Context previous = pipelineMetrics.bind(BATCH_LISTENER, "all");
+        try {
+            Timer.Sample save = pipelineMetrics.start();
+            try {
+                written = repository.bulkUpsert(extractions);
+            } catch (RuntimeException e) {
+                pipelineMetrics.failure(PipelineMetrics.MONGO_SAVE);
+                log.error("Bulk write of {} pages failed: {}", extractions.size(), e.getMessage(), e);
+                extractionRecords.forEach(record -> routeFailed(record, e));
+                return CompletableFuture.completedFuture(null);
+            } finally {
+                pipelineMetrics.stop(save, PipelineMetrics.MONGO_SAVE);
+            }
+        } finally {
+            pipelineMetrics.restore(previous);
+        }
+        extractions.forEach(extraction -> {
+            processedPageFilter.markProcessed(extraction.getBookId(), extraction.getPageNum());
+            pageHeaderCache.saved(extraction);
+            chapterIndex.saved(extraction);
+        });
+        // Every page of the poll is durable only once the bulk write returns
+        extractionContexts.forEach(context -> {
+            PipelineMetrics.Context pagePrevious = pipelineMetrics.bind(context);
+            try {
+                pipelineMetrics.stop(endToEnd, PipelineMetrics.END_TO_END);
+            } finally {
+                pipelineMetrics.restore(pagePrevious);
+            }
+        });
+        log.debug("Bulk write of {} pages: {} written", extractions.size(), written);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Parallel mode: hand every record of the poll to the key-ordered worker pool so pages of
+     * different books are OCRed concurrently while pages sharing a key keep their order, and
+     * return without waiting for them. {@link AsyncOffsetCommitter} commits the highest
+     * contiguous completed offset of each partition from later calls and idle events.
+     * {@link FlowController} pauses the container once pending records reach its high-water
+     * mark; records of the poll beyond the remaining capacity are sought back. A record counts as
+     * complete once its page is durable, so a lane moves on to its next page during the write.
+     */
+    @KafkaListener(
+            id = "bookEventsParallelListener",
+            topics = "${spring.kafka.topic}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            concurrency = "${spring.kafka.listener.concurrency}",
+            containerFactory = "parallelKafkaListenerContainerFactory",
+            autoStartup = "#{'${book-events.consumer.mode:record}' == 'parallel'}"
+    )
+    public void consumeParallel(List<ConsumerRecord<String, KafkaMessage>> polled, Consumer<?, ?> consumer) {
+        asyncOffsetCommitter.commit(consumer);
+
+        int capacity = Math.min(polled.size(), flowController.capacity());
+        List<ConsumerRecord<String, KafkaMessage>> records = polled.subList(0, capacity);
+        if (capacity < polled.size()) {
+            flowController.seekBack(consumer, polled.subList(capacity, polled.size()));
+        }
+
+        log.info("Dispatching {} of {} polled messages to {} workers",
+                records.size(), polled.size(), keyOrderedExecutor.getWorkers());
+
+        flowController.dispatched(records.size());
+        for (ConsumerRecord<String, KafkaMessage> record : records) {
+            asyncOffsetCommitter.dispatched(record);
+            Timer.Sample endToEnd = pipelineMetrics.start();
+            PipelineMetrics.Context dispatchPrevious = pipelineMetrics.bind(PARALLEL_LISTENER, record.partition());
+            try {
+                KafkaMessage message = deserialize(record);
+                String key = record.key() != null ? record.key() : message.getBookId();
+                PipelineMetrics.Context metricsContext = pipelineMetrics.current();
+                keyOrderedExecutor.submit(key, () -> {
+                    long startNanos = System.nanoTime();
+                    PageExtraction extraction = null;
+                    CompletableFuture<Void> durable;
+                    PipelineMetrics.Context previous = pipelineMetrics.bind(metricsContext);
+                    try {
+                        extraction = extractPage(message);
+                        durable = extraction == null ? CompletableFuture.completedFuture(null) : persist(extraction);
+                    } catch (Exception e) {
+                        durable = CompletableFuture.failedFuture(e);
+                    } finally {
+                        pipelineMetrics.restore(previous);
+                    }
+                    flowController.recordProcessingTime(System.nanoTime() - startNanos, 1);
+
+                    boolean extracted = extraction != null;
+                    durable.whenComplete((written, error) -> {
+                        PipelineMetrics.Context writePrevious = pipelineMetrics.bind(metricsContext);
+                        try {
+                            if (error != null) {
+                                log.error("Error processing message from partition {} at offset {}: {}",
+                                        record.partition(), record.offset(), error.getMessage(), error);
+                                routeFailed(record, cause(error));
+                            } else if (extracted) {
+                                messagesProcessed.incrementAndGet();
+                                pipelineMetrics.stop(endToEnd, PipelineMetrics.END_TO_END);
+                            }
+                        } finally {
+                            pipelineMetrics.restore(writePrevious);
+                        }
+                        asyncOffsetCommitter.completed(record);
+                        flowController.completed();
+                    });
+                });
+            } catch (Exception e) {
+                log.error("Error processing message from partition {} at offset {}: {}",
+                        record.partition(), record.offset(), e.getMessage(), e);
+                routeFailed(record, e);
+                asyncOffsetCommitter.completed(record);
+                flowController.completed();
+            } finally {
+                pipelineMetrics.restore(dispatchPrevious);
+            }
+        }
+
+        asyncOffsetCommitter.commit(consumer);
+    }
+
+    /**
+     * Pages that failed in any mode: OCR and persist again, with exponential back-off between
+     * attempts on {@code <topic>-retry-backoff-<n>}, and park the page on {@code <topic>-retry-dlt}
+     * with the failure headers once attempts run out. Malformed messages go straight to the DLT.
+     * Exceptions are rethrown so the retry error handler can forward the record.
+     */
+    @RetryableTopic(
+            attempts = "${book-events.retry.attempts:4}",
+            backoff = @Backoff(
+                    delayExpression = "${book-events.retry.initial-delay-ms:30000}",
+                    multiplierExpression = "${book-events.retry.multiplier:4}",
+                    maxDelayExpression = "${book-events.retry.max-delay-ms:1800000}"),
+            retryTopicSuffix = "-backoff",
+            dltTopicSuffix = "-dlt",
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            numPartitions = "${book-events.retry.partitions:1}",
+            autoCreateTopics = "${book-events.retry.auto-create-topics:true}",
+            exclude = {JsonProcessingException.class, DeserializationException.class},
+            traversingCauses = "true",
+            // An undecodable dead letter never reaches the handler; log it rather than re-send it to the DLT forever
+            dltStrategy = DltStrategy.FAIL_ON_ERROR,
+            kafkaTemplate = "kafkaTemplate"
+    )
+    @KafkaListener(
+            id = "bookEventsRetryListener",
+            topics = "${spring.kafka.topic}-retry",
+            groupId = "${spring.kafka.consumer.group-id}-retry",
+            concurrency = "${book-events.retry.concurrency:1}",
+            containerFactory = "retryKafkaListenerContainerFactory",
+            autoStartup = "${book-events.retry.enabled:true}"
+    )
+    public void consumeRetry(ConsumerRecord<String, KafkaMessage> record) throws Exception {
+        PipelineMetrics.Context previous = pipelineMetrics.bind(RETRY_LISTENER, record.partition());
+        try {
+            log.info("Retrying record from {} partition {} at offset {}", record.topic(), record.partition(), record.offset());
+            PageExtraction extraction = extractPage(record);
+            if (extraction != null) {
+                savePage(extraction);
+                messagesProcessed.incrementAndGet();
             }
+        } finally {
+            pipelineMetrics.restore(previous);
+        }
+    }
+
+    @DltHandler
+    public void onDeadLetter(ConsumerRecord<String, KafkaMessage> record) {
+        PipelineMetrics.Context previous = pipelineMetrics.bind(RETRY_LISTENER, record.partition());
+        try {
+            pipelineMetrics.failure("dead_letter");
+            log.error("Page dead-lettered on {} at offset {} after {}: {}",
+                    record.topic(), record.offset(),
+                    headerValue(record, KafkaHeaders.DLT_EXCEPTION_FQCN),
+                    headerValue(record, KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+        } finally {
+            pipelineMetrics.restore(previous);
+        }
+    }
+
+    private void routeFailed(ConsumerRecord<String, KafkaMessage> record, Exception cause) {
+        try {
+            failedPageRouter.route(record, cause);
+        } catch (RuntimeException e) {
+            log.error("Page from partition {} at offset {} could not be routed for retry: {}",
+                    record.partition(), record.offset(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Persist a page through {@link AsyncPageWriter}, or on this thread when the writer is disabled.
+     *
+     * @return Completes once the page is durable
+     */
+    private CompletableFuture<Void> persist(PageExtraction extraction) throws InterruptedException {
+        if (asyncPageWriter.isEnabled()) {
+            return asyncPageWriter.submit(extraction);
+        }
+        try {
+            savePage(extraction);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Exception cause(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof Exception ? (Exception) cause : new IllegalStateException(cause);
+    }
+
+    private static String headerValue(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Deserialize the record, OCR the page header and build the extraction to persist.
+     *
+     * @return The extraction, or null if the page was already extracted
+     */
+    private PageExtraction extractPage(ConsumerRecord<String, KafkaMessage> record) throws Exception {
+        return extractPage(deserialize(record));
+    }
+
+    /**
+     * The page event decoded by {@link KafkaMessageDeserializer} during the poll.
+     *
+     * @throws DeserializationException if the value could not be decoded; it carries the raw bytes
+     */
+    private KafkaMessage deserialize(ConsumerRecord<String, KafkaMessage> record) {
+        if (record.value() != null) {
+            return record.value();
+        }
+        pipelineMetrics.failure(PipelineMetrics.DESERIALIZE);
+        DeserializationException e = SerializationUtils.getExceptionFromHeader(
+                record, SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, DESERIALIZER_LOG);
+        throw e != null ? e : new DeserializationException("Record has no page event", null, false, null);
+    }
+
+    private PageExtraction extractPage(KafkaMessage message) {
+        if (isAlreadyExtracted(message)) {
+            return null;
+        }
+
+        log.info("Processing page: {} for image path: {}",
+                message.getPageNum(), " - " + message.getImagePath());
+
+        PreparedHeader header = headerPreparer.prepare(message.getImagePath());
+        return buildExtraction(message, ocrEngine.recognize(header).getText());
+    }
+
+    private boolean isAlreadyExtracted(KafkaMessage message) {
+        if (processedPageFilter.isProcessed(message.getBookId(), message.getPageNum())) {
+            log.info("Skipping page {} of book {}: already extracted", message.getPageNum(), message.getBookId());
+            return true;
+        }
+        return false;
+    }
+
+    private PageExtraction buildExtraction(KafkaMessage message, String extractedText) {
+        extractedText = ExtractedTextNormalizer.normalize(extractedText);
+
+        log.debug("Extracted text for page {}: {}...",
+                        message.getPageNum(),
+                        extractedText != null && extractedText.length() > 5
+                                        ? extractedText.substring(0, Math.min(5, extractedText.length()))
+                                        : "");
+
+        return PageExtraction.builder()
+                .bookId(message.getBookId())
+                .pageNum(message.getPageNum())
+                .extractedText(ExtractedTextNormalizer.truncateForStorage(extractedText))
+                .build();
+    }
+
+    private void savePage(PageExtraction extraction) {
+        Timer.Sample sample = pipelineMetrics.start();
+        try {
+            repository.upsert(extraction);
+        } catch (RuntimeException e) {
+            pipelineMetrics.failure(PipelineMetrics.MONGO_SAVE);
+            throw e;
+        } finally {
+            pipelineMetrics.stop(sample, PipelineMetrics.MONGO_SAVE);
         }
+        processedPageFilter.markProcessed(extraction.getBookId(), extraction.getPageNum());
+        pageHeaderCache.saved(extraction);
+        chapterIndex.saved(extraction);
     }
 
     public long getMessagesProcessed() {
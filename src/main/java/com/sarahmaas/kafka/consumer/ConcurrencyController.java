@@ -0,0 +1,316 @@
+package com.sarahmaas.kafka.consumer;
+
+import com.sarahmaas.kafka.service.OcrRateLimiter;
+import com.sarahmaas.kafka.service.PipelineMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sizes the consumer to the backlog. Every {@code book-events.autoscale.interval-ms} it reads the
+ * consumer group lag, the mean Azure OCR call latency since the last tick and the rate limiter queue, and
+ * moves the concurrency of the active listener between the configured min and max:
+ * <ul>
+ *     <li>callers queued on the rate limiter mean the quota, not concurrency, is the bottleneck: shrink</li>
+ *     <li>lag above {@code lag-high} grows by one step, up to the concurrency that keeps the quota busy
+ *     (calls per second times OCR latency) and, for container modes, the partition count</li>
+ *     <li>lag at or below {@code lag-low} shrinks by one</li>
+ * </ul>
+ * Record and batch mode restart the listener container with the new consumer count, at most once
+ * per cooldown since every restart rebalances the group. Parallel mode changes the active limit of
+ * the key-ordered worker pool instead, which needs no restart.
+ */
+@Slf4j
+@Component
+public class ConcurrencyController {
+
+    private static final int MAX_DECISIONS = 50;
+    private static final long ADMIN_TIMEOUT_SECONDS = 10;
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final KeyOrderedExecutor keyOrderedExecutor;
+    private final OcrRateLimiter ocrRateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final KafkaAdmin kafkaAdmin;
+
+    private final boolean enabled;
+    private final String mode;
+    private final String topic;
+    private final String groupId;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final long lagHigh;
+    private final long lagLow;
+    private final long cooldownMillis;
+
+    private AdminClient adminClient;
+    private long lastOcrCount;
+    private double lastOcrTotalMillis;
+    private long lastRestartMillis;
+    private Decision lastDecision;
+    private final Deque<Decision> decisions = new ArrayDeque<>();
+
+    public ConcurrencyController(KafkaListenerEndpointRegistry registry,
+                                 KeyOrderedExecutor keyOrderedExecutor,
+                                 OcrRateLimiter ocrRateLimiter,
+                                 MeterRegistry meterRegistry,
+                                 KafkaAdmin kafkaAdmin,
+                                 @Value("${book-events.autoscale.enabled:false}") boolean enabled,
+                                 @Value("${book-events.consumer.mode:record}") String mode,
+                                 @Value("${spring.kafka.topic}") String topic,
+                                 @Value("${spring.kafka.consumer.group-id}") String groupId,
+                                 @Value("${book-events.autoscale.min-concurrency:1}") int minConcurrency,
+                                 @Value("${book-events.autoscale.max-concurrency:10}") int maxConcurrency,
+                                 @Value("${book-events.autoscale.lag-high:100}") long lagHigh,
+                                 @Value("${book-events.autoscale.lag-low:0}") long lagLow,
+                                 @Value("${book-events.autoscale.cooldown-ms:120000}") long cooldownMillis) {
+        if (minConcurrency < 1 || maxConcurrency < minConcurrency) {
+            throw new IllegalArgumentException("Autoscale needs 1 <= min-concurrency <= max-concurrency");
+        }
+        this.registry = registry;
+        this.keyOrderedExecutor = keyOrderedExecutor;
+        this.ocrRateLimiter = ocrRateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.kafkaAdmin = kafkaAdmin;
+        this.enabled = enabled;
+        this.mode = mode;
+        this.topic = topic;
+        this.groupId = groupId;
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.lagHigh = lagHigh;
+        this.lagLow = lagLow;
+        this.cooldownMillis = cooldownMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${book-events.autoscale.interval-ms:30000}",
+            initialDelayString = "${book-events.autoscale.interval-ms:30000}")
+    public void adjust() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ConcurrentMessageListenerContainer<?, ?> container = activeContainer();
+            boolean parallel = "parallel".equals(mode);
+            if (!parallel && (container == null || !container.isRunning())) {
+                return;
+            }
+
+            Map<TopicPartition, Long> lagByPartition = readLag();
+            long lag = lagByPartition.values().stream().mapToLong(Long::longValue).sum();
+            double ocrLatencyMillis = recentOcrLatencyMillis();
+            int queued = ocrRateLimiter.getQueueDepth();
+
+            int current = parallel ? keyOrderedExecutor.getActiveLimit() : container.getConcurrency();
+            int upperBound = Math.min(maxConcurrency, quotaBound(ocrLatencyMillis));
+            if (!parallel) {
+                // Consumers beyond the partition count would sit idle
+                upperBound = Math.min(upperBound, Math.max(1, lagByPartition.size()));
+            }
+            upperBound = Math.max(minConcurrency, upperBound);
+
+            int target = current;
+            String reason;
+            if (queued > 0) {
+                target = Math.min(current - 1, upperBound);
+                reason = queued + " callers waiting on the OCR rate limiter";
+            } else if (lag > lagHigh) {
+                target = Math.min(current + 1, upperBound);
+                reason = "lag " + lag + " above " + lagHigh;
+            } else if (lag <= lagLow) {
+                target = current - 1;
+                reason = "lag " + lag + " at or below " + lagLow;
+            } else {
+                reason = "lag " + lag + " within bounds";
+            }
+            target = Math.max(minConcurrency, Math.min(maxConcurrency, target));
+
+            boolean applied = false;
+            if (target != current) {
+                applied = parallel ? applyWorkerLimit(target) : applyContainerConcurrency(container, target);
+            }
+            record(new Decision(Instant.now().toString(), lag, ocrLatencyMillis, queued,
+                    current, applied ? target : current, applied, reason));
+        } catch (Exception e) {
+            log.warn("Concurrency adjustment skipped: {}", e.getMessage());
+        }
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("mode", mode);
+        status.put("minConcurrency", minConcurrency);
+        status.put("maxConcurrency", maxConcurrency);
+        ConcurrentMessageListenerContainer<?, ?> container = activeContainer();
+        status.put("current", "parallel".equals(mode)
+                ? keyOrderedExecutor.getActiveLimit()
+                : container != null ? container.getConcurrency() : null);
+        status.put("lastDecision", lastDecision);
+        List<Decision> recent = new ArrayList<>(decisions);
+        Collections.reverse(recent);
+        status.put("decisions", recent);
+        return status;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+
+    /**
+     * Workers needed to keep the OCR quota busy when every worker waits one OCR latency per call.
+     */
+    private int quotaBound(double ocrLatencyMillis) {
+        if (Double.isNaN(ocrLatencyMillis)) {
+            return maxConcurrency;
+        }
+        double callsPerMilli = ocrRateLimiter.getCallsPerMinute() / 60000.0;
+        return Math.max(1, (int) Math.ceil(callsPerMilli * ocrLatencyMillis));
+    }
+
+    private boolean applyWorkerLimit(int target) {
+        keyOrderedExecutor.setActiveLimit(target);
+        log.info("Set parallel worker limit to {}", target);
+        return true;
+    }
+
+    private boolean applyContainerConcurrency(ConcurrentMessageListenerContainer<?, ?> container, int target) {
+        long now = System.currentTimeMillis();
+        if (now - lastRestartMillis < cooldownMillis) {
+            return false;
+        }
+        lastRestartMillis = now;
+
+        log.info("Restarting listener {} with concurrency {}", container.getListenerId(), target);
+        // Concurrency only takes effect on start; stop asynchronously so the scheduler is not held
+        container.stop(() -> {
+            container.setConcurrency(target);
+            container.start();
+        });
+        return true;
+    }
+
+    private ConcurrentMessageListenerContainer<?, ?> activeContainer() {
+        String listenerId;
+        if ("batch".equals(mode)) {
+            listenerId = "bookEventsBatchListener";
+        } else if ("parallel".equals(mode)) {
+            listenerId = "bookEventsParallelListener";
+        } else {
+            listenerId = "bookEventsRecordListener";
+        }
+        MessageListenerContainer container = registry.getListenerContainer(listenerId);
+        return container instanceof ConcurrentMessageListenerContainer
+                ? (ConcurrentMessageListenerContainer<?, ?>) container
+                : null;
+    }
+
+    /**
+     * Lag of every partition of the topic: log end offset minus the group's committed offset.
+     * Partitions the group has never committed count as no lag, since the consumer starts them
+     * from {@code auto-offset-reset}.
+     */
+    private Map<TopicPartition, Long> readLag() throws Exception {
+        AdminClient admin = adminClient();
+        TopicDescription description = admin.describeTopics(Collections.singletonList(topic))
+                .allTopicNames().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS).get(topic);
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(groupId)
+                .partitionsToOffsetAndMetadata().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        Map<TopicPartition, OffsetSpec> latestSpec = new HashMap<>();
+        description.partitions().forEach(partition ->
+                latestSpec.put(new TopicPartition(topic, partition.partition()), OffsetSpec.latest()));
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> latest = admin.listOffsets(latestSpec)
+                .all().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        Map<TopicPartition, Long> lag = new HashMap<>();
+        latest.forEach((partition, info) -> {
+            OffsetAndMetadata offset = committed.get(partition);
+            lag.put(partition, offset == null ? 0L : Math.max(0L, info.offset() - offset.offset()));
+        });
+        return lag;
+    }
+
+    /**
+     * Mean duration of the Azure OCR calls made since the previous tick. Local engine attempts are
+     * left out: they do not use the quota, and their fast calls would hide Azure slowing down.
+     *
+     * @return The mean in milliseconds, or NaN if no call completed
+     */
+    private double recentOcrLatencyMillis() {
+        long count = 0;
+        double totalMillis = 0;
+        for (Timer timer : meterRegistry.find(PipelineMetrics.OCR_ATTEMPT_TIMER)
+                .tag(PipelineMetrics.ENGINE_TAG, PipelineMetrics.AZURE_ENGINE).timers()) {
+            count += timer.count();
+            totalMillis += timer.totalTime(TimeUnit.MILLISECONDS);
+        }
+
+        long calls = count - lastOcrCount;
+        double millis = totalMillis - lastOcrTotalMillis;
+        lastOcrCount = count;
+        lastOcrTotalMillis = totalMillis;
+        return calls > 0 ? millis / calls : Double.NaN;
+    }
+
+    private synchronized AdminClient adminClient() {
+        if (adminClient == null) {
+            adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        }
+        return adminClient;
+    }
+
+    private synchronized void record(Decision decision) {
+        if (decision.isApplied()) {
+            log.info("Concurrency {} -> {}: {}", decision.getFrom(), decision.getTo(), decision.getReason());
+        }
+        lastDecision = decision;
+        decisions.addLast(decision);
+        while (decisions.size() > MAX_DECISIONS) {
+            decisions.removeFirst();
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Decision {
+        private String at;
+        private long lag;
+        private double ocrLatencyMillis;
+        private int rateLimiterQueue;
+        private int from;
+        private int to;
+        private boolean applied;
+        private String reason;
+    }
+}
@@ -0,0 +1,128 @@
+package com.sarahmaas.kafka.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends dead-lettered pages back to the main topic once the cause has been fixed. The replay
+ * reads the DLT with its own consumer group and commits what it has republished, so each
+ * dead letter is replayed once no matter how often the endpoint is called. Values are read and
+ * republished as raw bytes, so binary, JSON and undecodable dead letters all go back unchanged.
+ */
+@Slf4j
+@Component
+public class DeadLetterReplayer {
+
+    public static final String REPLAY_COUNT_HEADER = "book-events-replay-count";
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+
+    private final ConsumerFactory<String, ?> consumerFactory;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String topic;
+    private final String deadLetterTopic;
+    private final String replayGroupId;
+
+    public DeadLetterReplayer(ConsumerFactory<String, ?> consumerFactory,
+                              KafkaTemplate<String, Object> kafkaTemplate,
+                              FailedPageRouter failedPageRouter,
+                              @Value("${spring.kafka.topic}") String topic,
+                              @Value("${spring.kafka.consumer.group-id}") String groupId) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+        this.deadLetterTopic = failedPageRouter.getRetryTopic() + "-dlt";
+        this.replayGroupId = groupId + "-dlt-replay";
+    }
+
+    /**
+     * Republish up to {@code maxRecords} dead letters, oldest first, to the main topic.
+     *
+     * @return The number of records replayed
+     */
+    public synchronized int replay(int maxRecords) throws Exception {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(Math.max(1, Math.min(maxRecords, 500))));
+        overrides.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+
+        try (Consumer<String, byte[]> consumer = createConsumer(overrides)) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            List<PartitionInfo> infos = consumer.partitionsFor(deadLetterTopic);
+            if (infos == null || infos.isEmpty()) {
+                return 0;
+            }
+            infos.forEach(info -> partitions.add(new TopicPartition(info.topic(), info.partition())));
+            consumer.assign(partitions);
+
+            int replayed = 0;
+            while (replayed < maxRecords) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+
+                List<CompletableFuture<?>> sends = new ArrayList<>();
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<String, byte[]> record : records) {
+                    if (replayed >= maxRecords) {
+                        break;
+                    }
+                    sends.add(kafkaTemplate.send(replayRecord(record)));
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+
+                CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0]))
+                        .get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                consumer.commitSync(offsets);
+            }
+
+            log.info("Replayed {} records from {} to {}", replayed, deadLetterTopic, topic);
+            return replayed;
+        }
+    }
+
+    public String getDeadLetterTopic() {
+        return deadLetterTopic;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String, byte[]> createConsumer(Properties overrides) {
+        // The value deserializer is overridden above, whatever the factory's value type
+        return (Consumer<String, byte[]>) consumerFactory.createConsumer(replayGroupId, null, "-replay", overrides);
+    }
+
+    private ProducerRecord<String, Object> replayRecord(ConsumerRecord<String, byte[]> deadLetter) {
+        ProducerRecord<String, Object> replay = new ProducerRecord<>(topic, deadLetter.key(), deadLetter.value());
+        Header previous = deadLetter.headers().lastHeader(REPLAY_COUNT_HEADER);
+        int count = previous == null ? 1 : Integer.parseInt(new String(previous.value(), StandardCharsets.UTF_8)) + 1;
+        replay.headers().add(REPLAY_COUNT_HEADER, String.valueOf(count).getBytes(StandardCharsets.UTF_8));
+        return replay;
+    }
+}
@@ -0,0 +1,36 @@
+package com.sarahmaas.kafka.consumer;
+
+/**
+ * Clean-up applied to OCR header text before it is stored.
+ */
+public final class ExtractedTextNormalizer {
+
+    // Longest heading prefix kept in the extracted_text field
+    public static final int MAX_STORED_LENGTH = 15;
+
+    private ExtractedTextNormalizer() {
+    }
+
+    /**
+     * Trim and strip surrounding quotes if present.
+     */
+    public static String normalize(String extractedText) {
+        if (extractedText == null) {
+            return null;
+        }
+        extractedText = extractedText.trim();
+        if (extractedText.length() >= 2 && extractedText.startsWith("\"") && extractedText.endsWith("\"")) {
+            extractedText = extractedText.substring(1, extractedText.length() - 1);
+        }
+        return extractedText;
+    }
+
+    /**
+     * Cut normalized text down to the stored prefix.
+     */
+    public static String truncateForStorage(String extractedText) {
+        return extractedText != null && extractedText.length() > MAX_STORED_LENGTH
+                ? extractedText.substring(0, MAX_STORED_LENGTH)
+                : extractedText;
+    }
+}
@@ -0,0 +1,113 @@
+package com.sarahmaas.kafka.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands pages that failed in the main listeners to {@code <topic>-retry}, where the retry
+ * listener works through them with exponential back-off and finally parks them on
+ * {@code <topic>-retry-dlt}. The main partitions keep flowing behind a bad page instead of
+ * retrying it in place, and the page is no longer lost when its offset is acknowledged.
+ */
+@Slf4j
+@Component
+public class FailedPageRouter {
+
+    public static final String ORIGINAL_TOPIC_HEADER = "book-events-original-topic";
+    public static final String ORIGINAL_PARTITION_HEADER = "book-events-original-partition";
+    public static final String ORIGINAL_OFFSET_HEADER = "book-events-original-offset";
+    public static final String EXCEPTION_HEADER = "book-events-exception";
+    public static final String EXCEPTION_MESSAGE_HEADER = "book-events-exception-message";
+
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final boolean enabled;
+    private final String retryTopic;
+
+    private final AtomicLong routed = new AtomicLong();
+
+    public FailedPageRouter(KafkaTemplate<String, Object> kafkaTemplate,
+                            @Value("${book-events.retry.enabled:true}") boolean enabled,
+                            @Value("${spring.kafka.topic}") String topic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.enabled = enabled;
+        this.retryTopic = topic + "-retry";
+    }
+
+    /**
+     * Publish a failed record to the retry topic and wait for the broker to accept it, so the
+     * caller can acknowledge the original afterwards. A record whose value could not be decoded
+     * is published with its original bytes.
+     *
+     * @throws IllegalStateException if the record could not be published
+     */
+    public void route(ConsumerRecord<?, ?> record, Exception cause) {
+        if (!enabled) {
+            return;
+        }
+
+        // Keep the record's own headers, such as the replay count of a replayed dead letter, but
+        // not the serialized deserialization failure; the exception headers below describe it
+        Headers headers = new RecordHeaders(record.headers().toArray());
+        headers.remove(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER);
+        Object value = record.value() != null ? record.value() : undecodedValue(cause);
+        ProducerRecord<String, Object> retry = new ProducerRecord<>(retryTopic, null, (String) record.key(), value, headers);
+        header(retry, ORIGINAL_TOPIC_HEADER, record.topic());
+        header(retry, ORIGINAL_PARTITION_HEADER, String.valueOf(record.partition()));
+        header(retry, ORIGINAL_OFFSET_HEADER, String.valueOf(record.offset()));
+        header(retry, EXCEPTION_HEADER, cause.getClass().getName());
+        header(retry, EXCEPTION_MESSAGE_HEADER, String.valueOf(cause.getMessage()));
+
+        try {
+            kafkaTemplate.send(retry).get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            routed.incrementAndGet();
+            log.warn("Routed record from partition {} at offset {} to {}", record.partition(), record.offset(), retryTopic);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted routing record to " + retryTopic, e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not route record to " + retryTopic, e);
+        }
+    }
+
+    public String getRetryTopic() {
+        return retryTopic;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("retryTopic", retryTopic);
+        stats.put("routed", routed.get());
+        return stats;
+    }
+
+    private static byte[] undecodedValue(Exception cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof DeserializationException) {
+                return ((DeserializationException) t).getData();
+            }
+        }
+        return null;
+    }
+
+    private static void header(ProducerRecord<String, Object> record, String name, String value) {
+        record.headers().remove(name);
+        record.headers().add(name, value.getBytes(StandardCharsets.UTF_8));
+    }
+}
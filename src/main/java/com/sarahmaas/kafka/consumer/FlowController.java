@@ -0,0 +1,251 @@
+package com.sarahmaas.kafka.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.event.ConsumerPausedEvent;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flow control between the Kafka poll loop and the OCR work it feeds, so slow OCR never holds a
+ * listener past {@code max.poll.interval.ms}:
+ * <ul>
+ *     <li>a moving average of per-record processing time sizes how many records of a poll the
+ *     synchronous batch listener may take on, and the rest is handed back with a seek</li>
+ *     <li>the record listener is timed per poll by {@link #recordInterceptor}; once the next
+ *     record would overrun the poll budget, its consumer's container is paused immediately, which
+ *     keeps the rest of the poll in memory, polls once with the partitions paused and then
+ *     resumes with the kept records</li>
+ *     <li>the asynchronous parallel listener pauses its container once pending records reach the
+ *     high-water mark and resumes it at the low-water mark; paused consumers keep polling, so the
+ *     group stays stable while the workers catch up</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class FlowController {
+
+    private static final String PARALLEL_LISTENER_ID = "bookEventsParallelListener";
+    private static final String RECORD_LISTENER_ID = "bookEventsRecordListener";
+    // Weight of the newest sample in the per-record processing time average
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final int highWater;
+    private final int lowWater;
+    private final long pollBudgetMillis;
+
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean paused = new AtomicBoolean();
+    private final AtomicLong pauses = new AtomicLong();
+    private final AtomicLong truncatedPolls = new AtomicLong();
+    private final AtomicLong returnedRecords = new AtomicLong();
+    private final AtomicLong recordPollBreaks = new AtomicLong();
+
+    // Record listener consumers paused for one poll, resumed as soon as the pause takes effect
+    private final Set<MessageListenerContainer> breakingPolls = ConcurrentHashMap.newKeySet();
+
+    // Smoothed processing time of one record; NaN until the first sample
+    private double recordMillis = Double.NaN;
+
+    public FlowController(KafkaListenerEndpointRegistry registry,
+                          @Value("${book-events.flow.high-water:200}") int highWater,
+                          @Value("${book-events.flow.low-water:50}") int lowWater,
+                          @Value("${book-events.flow.poll-budget-ratio:0.5}") double pollBudgetRatio,
+                          @Value("${spring.kafka.consumer.properties.max.poll.interval.ms}") long maxPollIntervalMs) {
+        if (lowWater < 0 || highWater <= lowWater) {
+            throw new IllegalArgumentException("Flow control needs 0 <= low-water < high-water");
+        }
+        this.registry = registry;
+        this.highWater = highWater;
+        this.lowWater = lowWater;
+        this.pollBudgetMillis = (long) (maxPollIntervalMs * pollBudgetRatio);
+    }
+
+    /**
+     * Fold the processing time of {@code records} records into the moving average.
+     */
+    public synchronized void recordProcessingTime(long elapsedNanos, int records) {
+        if (records <= 0) {
+            return;
+        }
+        double sample = TimeUnit.NANOSECONDS.toMicros(elapsedNanos) / 1000.0 / records;
+        recordMillis = Double.isNaN(recordMillis) ? sample : EWMA_ALPHA * sample + (1 - EWMA_ALPHA) * recordMillis;
+    }
+
+    /**
+     * Records a synchronous listener can process within the poll budget: the effective
+     * {@code max.poll.records} for the current OCR latency.
+     */
+    public synchronized int pollBudget(int polled) {
+        if (Double.isNaN(recordMillis) || recordMillis <= 0) {
+            return polled;
+        }
+        return (int) Math.max(1, Math.min(polled, pollBudgetMillis / recordMillis));
+    }
+
+    /**
+     * Record listener interceptor that times each poll on its consumer thread and breaks the poll
+     * off before it overruns the poll budget. The record container must pause immediately
+     * ({@code ContainerProperties#setPauseImmediate}) so the remaining records are kept for after
+     * the break rather than processed first.
+     */
+    public <K, V> RecordInterceptor<K, V> recordInterceptor() {
+        return new RecordPollTimer<>();
+    }
+
+    /**
+     * Resume a record listener consumer paused by {@link RecordPollTimer}. Runs on the consumer
+     * thread just before its paused poll, which then resets {@code max.poll.interval.ms} and hands
+     * the kept records back to the listener.
+     */
+    @EventListener
+    public void onConsumerPaused(ConsumerPausedEvent event) {
+        MessageListenerContainer container = event.getSource(MessageListenerContainer.class);
+        if (container != null && breakingPolls.remove(container)) {
+            container.resume();
+        }
+    }
+
+    /**
+     * Free slots before the parallel listener reaches its high-water mark.
+     */
+    public int capacity() {
+        return Math.max(0, highWater - pending.get());
+    }
+
+    /**
+     * Seek every partition back to its first record that was handed back, so the next poll
+     * delivers it again. The kept records are committed by the listener's usual offset tracking.
+     * Must be called on the consumer thread.
+     *
+     * @param handedBack Records of the poll left for the next poll
+     */
+    public void truncatePoll(Consumer<?, ?> consumer, List<? extends ConsumerRecord<?, ?>> handedBack) {
+        seekBack(consumer, handedBack);
+        truncatedPolls.incrementAndGet();
+        returnedRecords.addAndGet(handedBack.size());
+    }
+
+    /**
+     * Seek every partition back to the first of the given records. Must be called on the consumer thread.
+     */
+    public void seekBack(Consumer<?, ?> consumer, List<? extends ConsumerRecord<?, ?>> records) {
+        Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+        for (ConsumerRecord<?, ?> record : records) {
+            firstOffsets.merge(new TopicPartition(record.topic(), record.partition()), record.offset(), Math::min);
+        }
+        firstOffsets.forEach(consumer::seek);
+    }
+
+    public void dispatched(int records) {
+        if (pending.addAndGet(records) >= highWater && paused.compareAndSet(false, true)) {
+            MessageListenerContainer container = registry.getListenerContainer(PARALLEL_LISTENER_ID);
+            if (container != null) {
+                container.pause();
+                pauses.incrementAndGet();
+                log.info("Paused {}: {} records pending (high-water {})", PARALLEL_LISTENER_ID, pending.get(), highWater);
+            }
+        }
+    }
+
+    public void completed() {
+        if (pending.decrementAndGet() <= lowWater && paused.compareAndSet(true, false)) {
+            MessageListenerContainer container = registry.getListenerContainer(PARALLEL_LISTENER_ID);
+            if (container != null) {
+                container.resume();
+                log.info("Resumed {}: {} records pending (low-water {})", PARALLEL_LISTENER_ID, pending.get(), lowWater);
+            }
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("highWater", highWater);
+        stats.put("lowWater", lowWater);
+        stats.put("pending", pending.get());
+        stats.put("paused", paused.get());
+        stats.put("pauses", pauses.get());
+        stats.put("recordMillis", recordMillis);
+        stats.put("pollBudgetMillis", pollBudgetMillis);
+        stats.put("truncatedPolls", truncatedPolls.get());
+        stats.put("returnedRecords", returnedRecords.get());
+        stats.put("recordPollBreaks", recordPollBreaks.get());
+        return stats;
+    }
+
+    private synchronized boolean wouldOverrunPoll(long elapsedNanos) {
+        double expectedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + (Double.isNaN(recordMillis) ? 0 : recordMillis);
+        return expectedMillis > pollBudgetMillis;
+    }
+
+    /**
+     * Pause the record listener's consumer that owns the record's partition.
+     */
+    private void breakPoll(ConsumerRecord<?, ?> record) {
+        MessageListenerContainer listener = registry.getListenerContainer(RECORD_LISTENER_ID);
+        if (!(listener instanceof ConcurrentMessageListenerContainer)) {
+            return;
+        }
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        for (MessageListenerContainer container : ((ConcurrentMessageListenerContainer<?, ?>) listener).getContainers()) {
+            if (container.getAssignedPartitions() != null && container.getAssignedPartitions().contains(partition)
+                    && breakingPolls.add(container)) {
+                container.pause();
+                recordPollBreaks.incrementAndGet();
+                log.info("Breaking off poll of {} before offset {} of partition {}: poll budget {}ms reached",
+                        RECORD_LISTENER_ID, record.offset(), record.partition(), pollBudgetMillis);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Times the records of each poll on one consumer thread. The poll starts when the container
+     * sets up its thread state, just before calling {@code poll}.
+     */
+    private final class RecordPollTimer<K, V> implements RecordInterceptor<K, V> {
+
+        private final ThreadLocal<long[]> pollStart = ThreadLocal.withInitial(() -> new long[] {System.nanoTime()});
+        private final ThreadLocal<long[]> recordStart = ThreadLocal.withInitial(() -> new long[1]);
+
+        @Override
+        public void setupThreadState(Consumer<?, ?> consumer) {
+            pollStart.get()[0] = System.nanoTime();
+        }
+
+        @Override
+        public ConsumerRecord<K, V> intercept(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+            long now = System.nanoTime();
+            recordStart.get()[0] = now;
+            // The pause takes effect after this record, so look one record ahead
+            if (wouldOverrunPoll(now - pollStart.get()[0])) {
+                breakPoll(record);
+            }
+            return record;
+        }
+
+        @Override
+        public void afterRecord(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+            recordProcessingTime(System.nanoTime() - recordStart.get()[0], 1);
+        }
+    }
+}
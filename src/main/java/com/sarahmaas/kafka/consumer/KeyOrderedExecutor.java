@@ -0,0 +1,119 @@
+package com.sarahmaas.kafka.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker pool made of single-threaded lanes. Tasks submitted with the same key always land on
+ * the same lane, so they run in submission order, while tasks for different keys run concurrently.
+ * An adjustable active limit caps how many lanes may run a task at once without remapping keys.
+ */
+@Slf4j
+@Component
+public class KeyOrderedExecutor {
+
+    private final ExecutorService[] lanes;
+    private final ActiveLimit activeLimit;
+    private volatile int activeLimitValue;
+
+    /**
+     * With {@code spring.threads.virtual.enabled} on a Java 21 runtime every lane runs on its own
+     * virtual thread, so the lane count becomes {@code book-events.virtual-threads.max-concurrency}:
+     * the cap on pages blocked in OCR or persistence at the same time.
+     */
+    public KeyOrderedExecutor(Environment environment,
+                              @Value("${book-events.parallel.workers:16}") int workers,
+                              @Value("${book-events.virtual-threads.max-concurrency:256}") int virtualMaxConcurrency) {
+        ThreadFactory threadFactory;
+        if (Threading.VIRTUAL.isActive(environment)) {
+            threadFactory = new VirtualThreadTaskExecutor("ocr-worker-vt-").getVirtualThreadFactory();
+            workers = virtualMaxConcurrency;
+        } else {
+            threadFactory = new CustomizableThreadFactory("ocr-worker-");
+        }
+
+        this.lanes = new ExecutorService[workers];
+        for (int i = 0; i < workers; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+        this.activeLimit = new ActiveLimit(workers);
+        this.activeLimitValue = workers;
+        log.info("Started key-ordered worker pool with {} {} lanes",
+                workers, Threading.VIRTUAL.isActive(environment) ? "virtual" : "platform");
+    }
+
+    public void submit(String key, Runnable task) {
+        int lane = key == null ? 0 : Math.floorMod(key.hashCode(), lanes.length);
+        lanes[lane].execute(() -> {
+            try {
+                activeLimit.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                task.run();
+            } finally {
+                activeLimit.release();
+            }
+        });
+    }
+
+    public int getWorkers() {
+        return lanes.length;
+    }
+
+    public int getActiveLimit() {
+        return activeLimitValue;
+    }
+
+    /**
+     * Change how many lanes may run a task at the same time, between 1 and the lane count.
+     * Lanes over the limit finish their current task and wait for a permit before the next one.
+     */
+    public synchronized void setActiveLimit(int limit) {
+        int target = Math.max(1, Math.min(lanes.length, limit));
+        int delta = target - activeLimitValue;
+        if (delta > 0) {
+            activeLimit.release(delta);
+        } else if (delta < 0) {
+            activeLimit.reducePermits(-delta);
+        }
+        activeLimitValue = target;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            lane.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
+
+    // Semaphore with its protected reducePermits opened up for shrinking the limit
+    private static final class ActiveLimit extends Semaphore {
+
+        ActiveLimit(int permits) {
+            super(permits);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.sarahmaas.kafka.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Tracks records that complete out of order and reports, per partition, the offset that is safe
+ * to commit: one past the highest offset below which every dispatched record has completed.
+ */
+public class OffsetTracker {
+
+    private final Map<TopicPartition, PartitionState> partitions = new HashMap<>();
+
+    public synchronized void dispatched(ConsumerRecord<?, ?> record) {
+        PartitionState state = partitions.computeIfAbsent(
+                new TopicPartition(record.topic(), record.partition()), tp -> new PartitionState());
+        state.pending.add(record.offset());
+        state.nextOffset = Math.max(state.nextOffset, record.offset() + 1);
+    }
+
+    public synchronized void completed(ConsumerRecord<?, ?> record) {
+        PartitionState state = partitions.get(new TopicPartition(record.topic(), record.partition()));
+        if (state != null) {
+            state.pending.remove(record.offset());
+        }
+    }
+
+    /**
+     * Offsets that advanced since the last {@link #committed} commit, ready to pass to
+     * {@code commitSync}.
+     */
+    public synchronized Map<TopicPartition, OffsetAndMetadata> committable() {
+        return committable(partitions.keySet());
+    }
+
+    /**
+     * Offsets that advanced since the last {@link #committed} commit, limited to the given
+     * partitions. They are offered again until reported committed.
+     */
+    public synchronized Map<TopicPartition, OffsetAndMetadata> committable(Collection<TopicPartition> owned) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        partitions.forEach((tp, state) -> {
+            if (!owned.contains(tp)) {
+                return;
+            }
+            long contiguous = state.pending.isEmpty() ? state.nextOffset : state.pending.first();
+            if (contiguous > state.committedOffset) {
+                offsets.put(tp, new OffsetAndMetadata(contiguous));
+            }
+        });
+        return offsets;
+    }
+
+    /**
+     * Record offsets that {@code commitSync} accepted.
+     */
+    public synchronized void committed(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((tp, offset) -> {
+            PartitionState state = partitions.get(tp);
+            if (state != null) {
+                state.committedOffset = Math.max(state.committedOffset, offset.offset());
+            }
+        });
+    }
+
+    /**
+     * Drop the state of partitions this consumer no longer owns.
+     */
+    public synchronized void forget(Collection<TopicPartition> revoked) {
+        partitions.keySet().removeAll(revoked);
+    }
+
+    public synchronized int pendingCount() {
+        return partitions.values().stream().mapToInt(state -> state.pending.size()).sum();
+    }
+
+    private static class PartitionState {
+        private final TreeSet<Long> pending = new TreeSet<>();
+        private long nextOffset = -1;
+        private long committedOffset = -1;
+    }
+}
@@ -0,0 +1,158 @@
+package com.sarahmaas.kafka.consumer;
+
+import com.sarahmaas.kafka.image.PreparedHeader;
+import com.sarahmaas.kafka.service.HeaderPreparer;
+import com.sarahmaas.kafka.service.OcrEngine;
+import com.sarahmaas.kafka.service.PipelineMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-ahead stage for page images: while the OCR call for one page is in flight, the next
+ * {@code book-events.prefetch.depth} pages of the same poll are decoded by {@link HeaderPreparer}
+ * and given the OCR engine's own preparation ({@link OcrEngine#prepareAhead}) on a small
+ * background pool.
+ */
+@Slf4j
+@Component
+public class PagePrefetcher {
+
+    private final HeaderPreparer headerPreparer;
+    private final OcrEngine ocrEngine;
+    private final PipelineMetrics pipelineMetrics;
+    private final ExecutorService executor;
+    private final int depth;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public PagePrefetcher(HeaderPreparer headerPreparer,
+                          OcrEngine ocrEngine,
+                          PipelineMetrics pipelineMetrics,
+                          @Value("${book-events.prefetch.depth:4}") int depth,
+                          @Value("${book-events.prefetch.threads:2}") int threads) {
+        this.headerPreparer = headerPreparer;
+        this.ocrEngine = ocrEngine;
+        this.pipelineMetrics = pipelineMetrics;
+        this.depth = depth;
+        this.executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("page-prefetch-"));
+    }
+
+    /**
+     * Open a read-ahead window over the image paths of one poll, in processing order.
+     *
+     * @param metricsContexts Listener and partition of each page, for the metrics recorded while preparing it
+     */
+    public Window open(List<String> imagePaths, List<PipelineMetrics.Context> metricsContexts) {
+        return new Window(imagePaths, metricsContexts);
+    }
+
+    public Map<String, Object> getStats() {
+        long total = hits.get() + inFlight.get() + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("depth", depth);
+        stats.put("hits", hits.get());
+        stats.put("inFlight", inFlight.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hits.get() / total);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private PreparedHeader prepare(String imagePath) {
+        return ocrEngine.prepareAhead(headerPreparer.prepare(imagePath));
+    }
+
+    /**
+     * Bounded buffer of pages being prepared ahead of the consumer. Not thread-safe: a window
+     * belongs to the listener thread that opened it.
+     */
+    public class Window implements AutoCloseable {
+
+        private final List<String> imagePaths;
+        private final List<PipelineMetrics.Context> metricsContexts;
+        private final Deque<CompletableFuture<PreparedHeader>> buffer = new ArrayDeque<>();
+        private int nextToPrefetch;
+        private int nextToTake;
+
+        private Window(List<String> imagePaths, List<PipelineMetrics.Context> metricsContexts) {
+            this.imagePaths = imagePaths;
+            this.metricsContexts = metricsContexts;
+            fill();
+        }
+
+        /**
+         * Take the next page in order, waiting for its preparation if it is still running, and
+         * schedule the page {@code depth} positions ahead.
+         */
+        public PreparedHeader next() {
+            if (nextToTake >= imagePaths.size()) {
+                throw new IllegalStateException("No more pages in this window");
+            }
+            nextToTake++;
+
+            CompletableFuture<PreparedHeader> prepared = buffer.pollFirst();
+            fill();
+
+            if (prepared == null) {
+                misses.incrementAndGet();
+                return prepare(imagePaths.get(nextToTake - 1));
+            }
+            if (prepared.isDone()) {
+                hits.incrementAndGet();
+            } else {
+                inFlight.incrementAndGet();
+            }
+
+            try {
+                return prepared.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            buffer.forEach(prepared -> prepared.cancel(false));
+            buffer.clear();
+        }
+
+        private void fill() {
+            while (buffer.size() < depth && nextToPrefetch < imagePaths.size()) {
+                String imagePath = imagePaths.get(nextToPrefetch);
+                PipelineMetrics.Context metricsContext = metricsContexts.get(nextToPrefetch);
+                nextToPrefetch++;
+                buffer.addLast(CompletableFuture.supplyAsync(() -> {
+                    PipelineMetrics.Context previous = pipelineMetrics.bind(metricsContext);
+                    try {
+                        return prepare(imagePath);
+                    } finally {
+                        pipelineMetrics.restore(previous);
+                    }
+                }, executor));
+            }
+        }
+    }
+}
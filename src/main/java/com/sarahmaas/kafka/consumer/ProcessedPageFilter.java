@@ -0,0 +1,158 @@
+package com.sarahmaas.kafka.consumer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sarahmaas.kafka.model.PageExtraction;
+import com.sarahmaas.kafka.repository.PageExtractionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-book bitset of page numbers that already have an extraction, consulted before any image
+ * work so Kafka redeliveries and producer retries cost a lookup instead of an OCR call.
+ * A book is loaded from Mongo the first time one of its pages is seen, outside any lock, and
+ * the {@code book-events.processed-filter.max-books} most recently used books are kept.
+ * A partition assignment marks every kept book stale; each is reloaded the next time one of its
+ * pages is seen and the stored pages are added to its bitset, so pages written by the previous
+ * owner are picked up without dropping pages marked in the meantime.
+ */
+@Slf4j
+@Component
+public class ProcessedPageFilter implements ConsumerAwareRebalanceListener {
+
+    private final PageExtractionRepository repository;
+    private final MongoTemplate mongoTemplate;
+
+    private final Cache<String, BookPages> processedPages;
+    // Bumped on every assignment; a book loaded in an earlier generation is reloaded on next use
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProcessedPageFilter(PageExtractionRepository repository, MongoTemplate mongoTemplate,
+                               @Value("${book-events.processed-filter.max-books:10000}") long maxBooks) {
+        this.repository = repository;
+        this.mongoTemplate = mongoTemplate;
+        this.processedPages = Caffeine.newBuilder()
+                .maximumSize(maxBooks)
+                .build();
+    }
+
+    /**
+     * Backstop for the filter: at most one extraction per book and page.
+     * Logged rather than fatal so a collection that already holds duplicates still starts.
+     */
+    @PostConstruct
+    public void ensureUniquePageIndex() {
+        try {
+            mongoTemplate.indexOps(PageExtraction.class).ensureIndex(new Index()
+                    .on("book_id", Sort.Direction.ASC)
+                    .on("page_num", Sort.Direction.ASC)
+                    .unique()
+                    .named("book_id_page_num_unique"));
+        } catch (Exception e) {
+            log.warn("Could not create unique book_id/page_num index, remove duplicate pages first: {}",
+                    e.getMessage());
+        }
+    }
+
+    public boolean isProcessed(String bookId, Integer pageNum) {
+        if (bookId == null || pageNum == null || pageNum < 0) {
+            return false;
+        }
+        BookPages pages = book(bookId);
+        synchronized (pages) {
+            return pages.pages.get(pageNum);
+        }
+    }
+
+    /**
+     * Record a durable page. A book that is not loaded is left alone: its next load reads the
+     * page from Mongo.
+     */
+    public void markProcessed(String bookId, Integer pageNum) {
+        if (bookId == null || pageNum == null || pageNum < 0) {
+            return;
+        }
+        BookPages pages = processedPages.getIfPresent(bookId);
+        if (pages != null) {
+            synchronized (pages) {
+                pages.pages.set(pageNum);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        generation.incrementAndGet();
+        log.info("Processed pages of {} books marked for reload after assignment of {}",
+                processedPages.estimatedSize(), partitions);
+    }
+
+    /**
+     * The book's bitset, loading it or refreshing a stale one first. The query runs outside the
+     * cache, so other books are never held up by it.
+     */
+    private BookPages book(String bookId) {
+        long current = generation.get();
+        BookPages pages = processedPages.getIfPresent(bookId);
+        if (pages != null) {
+            synchronized (pages) {
+                if (pages.generation >= current) {
+                    return pages;
+                }
+            }
+            BitSet stored = loadBook(bookId);
+            synchronized (pages) {
+                pages.pages.or(stored);
+                pages.generation = Math.max(pages.generation, current);
+            }
+            return pages;
+        }
+
+        BookPages loaded = new BookPages(loadBook(bookId), current);
+        BookPages raced = processedPages.asMap().putIfAbsent(bookId, loaded);
+        if (raced == null) {
+            return loaded;
+        }
+        synchronized (raced) {
+            raced.pages.or(loaded.pages);
+        }
+        return raced;
+    }
+
+    private BitSet loadBook(String bookId) {
+        BitSet pages = new BitSet();
+        for (PageExtraction extraction : repository.findPageNumsByBookId(bookId)) {
+            if (extraction.getPageNum() != null && extraction.getPageNum() >= 0) {
+                pages.set(extraction.getPageNum());
+            }
+        }
+        log.debug("Loaded {} processed pages for book {}", pages.cardinality(), bookId);
+        return pages;
+    }
+
+    /**
+     * Processed pages of one book, guarded by the instance's monitor.
+     */
+    private static final class BookPages {
+
+        private final BitSet pages;
+        private long generation;
+
+        private BookPages(BitSet pages, long generation) {
+            this.pages = pages;
+            this.generation = generation;
+        }
+    }
+}
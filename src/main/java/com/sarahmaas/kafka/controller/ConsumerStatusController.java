@@ -1,6 +1,19 @@
 package com.sarahmaas.kafka.controller;
 
+import com.sarahmaas.kafka.consumer.AsyncPageWriter;
 import com.sarahmaas.kafka.consumer.BookEventsConsumer;
+import com.sarahmaas.kafka.consumer.ConcurrencyController;
+import com.sarahmaas.kafka.consumer.DeadLetterReplayer;
+import com.sarahmaas.kafka.consumer.FailedPageRouter;
+import com.sarahmaas.kafka.consumer.FlowController;
+import com.sarahmaas.kafka.consumer.PagePrefetcher;
+import com.sarahmaas.kafka.service.AzureOcrService;
+import com.sarahmaas.kafka.service.ChapterIndex;
+import com.sarahmaas.kafka.service.OcrRateLimiter;
+import com.sarahmaas.kafka.service.OcrResultCache;
+import com.sarahmaas.kafka.service.PageHeaderCache;
+import com.sarahmaas.kafka.service.PageImageSource;
+import com.sarahmaas.kafka.service.TieredOcrEngine;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -12,6 +25,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api")
@@ -20,6 +34,19 @@ public class ConsumerStatusController {
     
     private final BookEventsConsumer bookEventsConsumer;
     private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+    private final OcrResultCache ocrResultCache;
+    private final OcrRateLimiter ocrRateLimiter;
+    private final PagePrefetcher pagePrefetcher;
+    private final TieredOcrEngine tieredOcrEngine;
+    private final AzureOcrService azureOcrService;
+    private final ConcurrencyController concurrencyController;
+    private final FlowController flowController;
+    private final AsyncPageWriter asyncPageWriter;
+    private final FailedPageRouter failedPageRouter;
+    private final DeadLetterReplayer deadLetterReplayer;
+    private final PageHeaderCache pageHeaderCache;
+    private final ChapterIndex chapterIndex;
+    private final PageImageSource pageImageSource;
     
     @GetMapping("/")
     public ResponseEntity<ServiceInfo> root() {
@@ -59,6 +86,81 @@ public class ConsumerStatusController {
         return ResponseEntity.ok(status);
     }
     
+    @GetMapping("/ocr-cache")
+    public ResponseEntity<Map<String, Object>> getOcrCacheStats() {
+        return ResponseEntity.ok(ocrResultCache.getStats());
+    }
+    
+    @GetMapping("/ocr-rate-limit")
+    public ResponseEntity<Map<String, Object>> getOcrRateLimitStats() {
+        return ResponseEntity.ok(ocrRateLimiter.getStats());
+    }
+    
+    @GetMapping("/prefetch")
+    public ResponseEntity<Map<String, Object>> getPrefetchStats() {
+        return ResponseEntity.ok(pagePrefetcher.getStats());
+    }
+    
+    @GetMapping("/ocr-tiers")
+    public ResponseEntity<Map<String, Object>> getOcrTierStats() {
+        return ResponseEntity.ok(tieredOcrEngine.getStats());
+    }
+    
+    @GetMapping("/ocr-payload")
+    public ResponseEntity<Map<String, Object>> getOcrPayloadStats() {
+        return ResponseEntity.ok(azureOcrService.getPayloadStats());
+    }
+    
+    @GetMapping("/image-source")
+    public ResponseEntity<Map<String, Object>> getImageSourceStats() {
+        return ResponseEntity.ok(pageImageSource.getStats());
+    }
+    
+    @GetMapping("/concurrency")
+    public ResponseEntity<Map<String, Object>> getConcurrency() {
+        return ResponseEntity.ok(concurrencyController.getStatus());
+    }
+    
+    @GetMapping("/flow")
+    public ResponseEntity<Map<String, Object>> getFlowStats() {
+        return ResponseEntity.ok(flowController.getStats());
+    }
+
+    @GetMapping("/writer")
+    public ResponseEntity<Map<String, Object>> getWriterStats() {
+        return ResponseEntity.ok(asyncPageWriter.getStats());
+    }
+    
+    @GetMapping("/page-cache")
+    public ResponseEntity<Map<String, Object>> getPageCacheStats() {
+        return ResponseEntity.ok(pageHeaderCache.getStats());
+    }
+    
+    @GetMapping("/chapter-index")
+    public ResponseEntity<Map<String, Object>> getChapterIndexStats() {
+        return ResponseEntity.ok(chapterIndex.getStats());
+    }
+    
+    @GetMapping("/retry")
+    public ResponseEntity<Map<String, Object>> getRetryStats() {
+        return ResponseEntity.ok(failedPageRouter.getStats());
+    }
+    
+    @PostMapping("/dlt/replay")
+    public ResponseEntity<ReplayResponse> replayDeadLetters(@RequestParam(defaultValue = "100") int max) {
+        try {
+            int replayed = deadLetterReplayer.replay(max);
+            return ResponseEntity.ok(new ReplayResponse(
+                    "success",
+                    deadLetterReplayer.getDeadLetterTopic(),
+                    replayed
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(new ReplayResponse("error: " + e.getMessage(), deadLetterReplayer.getDeadLetterTopic(), 0));
+        }
+    }
+    
     @PostMapping("/shutdown")
     public ResponseEntity<ShutdownResponse> shutdown() {
         try {
@@ -78,7 +180,9 @@ public class ConsumerStatusController {
     @PostMapping("/start")
     public ResponseEntity<ShutdownResponse> start() {
         try {
-            kafkaListenerEndpointRegistry.getAllListenerContainers()
+            // Only start the listener for the configured book-events.consumer.mode
+            kafkaListenerEndpointRegistry.getAllListenerContainers().stream()
+                    .filter(MessageListenerContainer::isAutoStartup)
                     .forEach(MessageListenerContainer::start);
             
             return ResponseEntity.ok(new ShutdownResponse(
@@ -115,6 +219,14 @@ public class ConsumerStatusController {
         private Object metrics;
     }
     
+    @Data
+    @AllArgsConstructor
+    static class ReplayResponse {
+        private String status;
+        private String topic;
+        private int replayed;
+    }
+    
     @Data
     @AllArgsConstructor
     static class ShutdownResponse {
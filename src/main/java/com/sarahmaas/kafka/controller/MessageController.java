@@ -2,18 +2,25 @@ package com.sarahmaas.kafka.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.sarahmaas.kafka.model.KafkaMessage;
+import com.sarahmaas.kafka.model.SendBookRequest;
+import com.sarahmaas.kafka.service.BookPublisher;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @RestController
 public class MessageController {
 
     @Autowired
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private BookPublisher bookPublisher;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -22,15 +29,72 @@ public class MessageController {
     public String sendMessage(@RequestBody KafkaMessage message) {
         try {
             String jsonMessage = objectMapper.writeValueAsString(message);
-            kafkaTemplate.send("mytopic", jsonMessage);
+            bookPublisher.send(message);
             return "Message sent successfully: " + jsonMessage;
         } catch (Exception e) {
             return "Error sending message: " + e.getMessage();
         }
     }
 
+    /**
+     * Queue a whole book: the pages given, or every image of {@code directory}, a directory or
+     * page bundle under {@code file-path.prefix}.
+     */
+    @PostMapping("/send-book")
+    public ResponseEntity<SendBookResponse> sendBook(@RequestBody SendBookRequest request) {
+        long startTime = System.currentTimeMillis();
+        String bookId = request.getBookId();
+        if (bookId == null || bookId.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(new SendBookResponse("error: book_id is required", null, bookPublisher.getTopic(), 0, 0, 0));
+        }
+
+        try {
+            List<KafkaMessage> pages;
+            if (request.getPages() != null && !request.getPages().isEmpty()) {
+                pages = new ArrayList<>(request.getPages().size());
+                for (KafkaMessage page : request.getPages()) {
+                    pages.add(new KafkaMessage(bookId, page.getPageNum(), page.getImagePath()));
+                }
+            } else if (request.getDirectory() != null) {
+                pages = bookPublisher.listPages(bookId, request.getDirectory());
+            } else {
+                return ResponseEntity.badRequest()
+                        .body(new SendBookResponse("error: pages or directory is required", bookId, bookPublisher.getTopic(), 0, 0, 0));
+            }
+
+            int sent = bookPublisher.sendAll(pages);
+            return ResponseEntity.ok(new SendBookResponse(
+                    sent == pages.size() ? "success" : "partial",
+                    bookId,
+                    bookPublisher.getTopic(),
+                    pages.size(),
+                    sent,
+                    System.currentTimeMillis() - startTime
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new SendBookResponse("error: " + e.getMessage(), bookId, bookPublisher.getTopic(), 0, 0, 0));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                    .body(new SendBookResponse("error: " + e.getMessage(), bookId, bookPublisher.getTopic(), 0, 0, 0));
+        }
+    }
+
     @GetMapping("/healthcheck")
     public String hello(){
         return "Application UP";
     }
+
+    // DTOs
+    @Data
+    @AllArgsConstructor
+    static class SendBookResponse {
+        private String status;
+        private String bookId;
+        private String topic;
+        private int pages;
+        private int sent;
+        private long elapsedMs;
+    }
 }
@@ -0,0 +1,68 @@
+package com.sarahmaas.kafka.controller;
+
+import com.sarahmaas.kafka.model.Chapter;
+import com.sarahmaas.kafka.model.PageHeader;
+import com.sarahmaas.kafka.service.ChapterIndex;
+import com.sarahmaas.kafka.service.PageHeaderCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Extracted page headers for downstream services, served from {@link PageHeaderCache}, and the
+ * chapters they map to, served from {@link ChapterIndex}.
+ */
+@RestController
+@RequestMapping("/api/books")
+@RequiredArgsConstructor
+public class PageHeaderController {
+
+    private final PageHeaderCache pageHeaderCache;
+    private final ChapterIndex chapterIndex;
+
+    /**
+     * Every extracted page of a book, or the pages from {@code from} to {@code to} inclusive.
+     */
+    @GetMapping("/{bookId}/pages")
+    public ResponseEntity<List<PageHeader>> getPages(@PathVariable String bookId,
+                                                     @RequestParam(required = false) Integer from,
+                                                     @RequestParam(required = false) Integer to) {
+        if (from == null && to == null) {
+            return ResponseEntity.ok(pageHeaderCache.getBook(bookId));
+        }
+        return ResponseEntity.ok(pageHeaderCache.getRange(bookId,
+                from != null ? from : Integer.MIN_VALUE,
+                to != null ? to : Integer.MAX_VALUE));
+    }
+
+    @GetMapping("/{bookId}/pages/{pageNum}")
+    public ResponseEntity<PageHeader> getPage(@PathVariable String bookId, @PathVariable int pageNum) {
+        return pageHeaderCache.getPage(bookId, pageNum)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{bookId}/pages/{pageNum}/chapter")
+    public ResponseEntity<Chapter> getChapterOfPage(@PathVariable String bookId, @PathVariable int pageNum) {
+        return chapterIndex.chapterOf(bookId, pageNum)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{bookId}/chapters")
+    public ResponseEntity<List<Chapter>> getChapters(@PathVariable String bookId) {
+        return ResponseEntity.ok(chapterIndex.chapters(bookId));
+    }
+
+    /**
+     * @param chapter 1-based chapter number
+     */
+    @GetMapping("/{bookId}/chapters/{chapter}")
+    public ResponseEntity<Chapter> getChapter(@PathVariable String bookId, @PathVariable int chapter) {
+        return chapterIndex.chapter(bookId, chapter)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,407 @@
+package com.sarahmaas.kafka.image;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Offset table of a page bundle: a zip or tar archive holding the images of one book. The table is
+ * built once, from the zip central directory or by walking the tar headers, and the archive is
+ * memory-mapped, so reading an entry is a map lookup and a slice of the mapping with no file
+ * system access per page. Archives over 2 GiB are read with positional {@link FileChannel} reads.
+ * <p>
+ * Tar entries and stored zip entries are served in place; deflated zip entries are inflated on
+ * read. Zip entry names are taken as UTF-8, like {@code java.util.zip}; ZIP64 is not supported.
+ * <p>
+ * A reader that may race {@link #close} brackets its reads with {@link #retain} and
+ * {@link #release}; the channel is then closed only once the last such reader is done.
+ */
+public final class ArchiveIndex implements Closeable {
+
+    private static final int ZIP_LOCAL_SIGNATURE = 0x04034b50;
+    private static final int ZIP_CENTRAL_SIGNATURE = 0x02014b50;
+    private static final int ZIP_END_SIGNATURE = 0x06054b50;
+    private static final int ZIP_LOCAL_HEADER_SIZE = 30;
+    private static final int ZIP_CENTRAL_HEADER_SIZE = 46;
+    private static final int ZIP_END_SIZE = 22;
+    private static final int ZIP_MAX_COMMENT = 0xFFFF;
+    private static final int ZIP_ENCRYPTED = 1;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private static final int TAR_BLOCK = 512;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long size;
+    private final ByteBuffer mapped;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    // Guarded by this
+    private int references;
+    private boolean closed;
+
+    private ArchiveIndex(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.size = channel.size();
+        this.mapped = size <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+    }
+
+    /**
+     * Open an archive and index its entries; zip or tar is told from the first bytes.
+     *
+     * @throws IOException if the file is neither a readable zip nor tar archive
+     */
+    public static ArchiveIndex open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ArchiveIndex index = new ArchiveIndex(path, channel);
+            if (index.size >= 4 && index.region(0, 4).order(ByteOrder.LITTLE_ENDIAN).getInt(0) == ZIP_LOCAL_SIGNATURE) {
+                index.indexZip();
+            } else {
+                index.indexTar();
+            }
+            return index;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Names of the file entries, without a leading {@code ./} or {@code /}.
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * The bytes of an entry, from position to limit. Stored entries are a read-only view of the
+     * archive mapping; deflated entries are inflated into a new buffer.
+     *
+     * @throws NoSuchFileException if the archive has no such entry
+     */
+    public ByteBuffer read(String name) throws IOException {
+        Entry entry = entries.get(normalize(name));
+        if (entry == null) {
+            throw new NoSuchFileException(path + "!/" + name);
+        }
+        if (entry.encrypted) {
+            throw new ZipException("Encrypted entry " + name + " in " + path);
+        }
+        ByteBuffer data = region(entry.offset, toInt(entry.size, name));
+        if (entry.method == STORED) {
+            return data;
+        }
+        if (entry.method != DEFLATED) {
+            throw new ZipException("Unsupported compression method " + entry.method + " for " + name + " in " + path);
+        }
+
+        ByteBuffer inflated = ByteBuffer.allocate(toInt(entry.uncompressedSize, name));
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            while (inflated.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(inflated) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ZipException("Truncated entry " + name + " in " + path);
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt entry " + name + " in " + path + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+        inflated.flip();
+        return inflated;
+    }
+
+    /**
+     * Keep the channel open for reads until the matching {@link #release}, even if the archive is
+     * closed in the meantime.
+     *
+     * @throws ClosedChannelException if the archive is already closed
+     */
+    public synchronized void retain() throws ClosedChannelException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        references++;
+    }
+
+    public void release() throws IOException {
+        synchronized (this) {
+            if (--references > 0 || !closed) {
+                return;
+            }
+        }
+        channel.close();
+    }
+
+    /**
+     * Closes the channel, or leaves that to the last retained reader. The mapping itself is
+     * released when it is garbage collected, so views already handed out stay readable.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (references > 0) {
+                return;
+            }
+        }
+        channel.close();
+    }
+
+    private void indexZip() throws IOException {
+        int tailLength = (int) Math.min(size, ZIP_END_SIZE + ZIP_MAX_COMMENT);
+        ByteBuffer tail = region(size - tailLength, tailLength).order(ByteOrder.LITTLE_ENDIAN);
+        int end = -1;
+        for (int i = tailLength - ZIP_END_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == ZIP_END_SIGNATURE) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            throw new ZipException("No end of central directory in " + path);
+        }
+
+        int count = tail.getShort(end + 10) & 0xFFFF;
+        long directorySize = tail.getInt(end + 12) & 0xFFFFFFFFL;
+        long directoryOffset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+        if (count == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+            throw new ZipException("ZIP64 archives are not supported: " + path);
+        }
+
+        ByteBuffer directory = region(directoryOffset, toInt(directorySize, "central directory"))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        int at = 0;
+        for (int i = 0; i < count; i++) {
+            if (at + ZIP_CENTRAL_HEADER_SIZE > directory.limit() || directory.getInt(at) != ZIP_CENTRAL_SIGNATURE) {
+                throw new ZipException("Corrupt central directory in " + path);
+            }
+            int flags = directory.getShort(at + 8) & 0xFFFF;
+            int method = directory.getShort(at + 10) & 0xFFFF;
+            long compressedSize = directory.getInt(at + 20) & 0xFFFFFFFFL;
+            long uncompressedSize = directory.getInt(at + 24) & 0xFFFFFFFFL;
+            int nameLength = directory.getShort(at + 28) & 0xFFFF;
+            int extraLength = directory.getShort(at + 30) & 0xFFFF;
+            int commentLength = directory.getShort(at + 32) & 0xFFFF;
+            long localOffset = directory.getInt(at + 42) & 0xFFFFFFFFL;
+            String name = string(directory, at + ZIP_CENTRAL_HEADER_SIZE, nameLength);
+            at += ZIP_CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+
+            if (name.endsWith("/")) {
+                continue;
+            }
+            // The local header's name and extra field can differ in length from the central copy
+            ByteBuffer local = region(localOffset, ZIP_LOCAL_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (local.getInt(0) != ZIP_LOCAL_SIGNATURE) {
+                throw new ZipException("Corrupt local header of " + name + " in " + path);
+            }
+            long dataOffset = localOffset + ZIP_LOCAL_HEADER_SIZE
+                    + (local.getShort(26) & 0xFFFF) + (local.getShort(28) & 0xFFFF);
+            entries.put(normalize(name), new Entry(dataOffset, compressedSize, uncompressedSize, method,
+                    (flags & ZIP_ENCRYPTED) != 0));
+        }
+    }
+
+    private void indexTar() throws IOException {
+        long at = 0;
+        String longName = null;
+        while (at + TAR_BLOCK <= size) {
+            ByteBuffer header = region(at, TAR_BLOCK);
+            if (isZeroBlock(header)) {
+                break;
+            }
+            if (!hasValidChecksum(header)) {
+                throw new IOException("Not a zip or tar archive, or corrupt tar header at " + at + ": " + path);
+            }
+
+            long entrySize = tarNumber(header, 124, 12);
+            byte type = header.get(156);
+            long data = at + TAR_BLOCK;
+            if (type == 'L') {
+                // GNU long name of the next entry
+                longName = trimNul(string(region(data, toInt(entrySize, "long name")), 0, (int) entrySize));
+            } else if (type == 'x') {
+                // PAX extended header of the next entry; only its path matters here
+                String paxName = paxPath(string(region(data, toInt(entrySize, "pax header")), 0, (int) entrySize));
+                if (paxName != null) {
+                    longName = paxName;
+                }
+            } else if (type != 'g') {
+                String name = longName != null ? longName : ustarName(header);
+                longName = null;
+                if (type == '0' || type == 0 || type == '7') {
+                    entries.put(normalize(name), new Entry(data, entrySize, entrySize, STORED, false));
+                }
+            }
+            at = data + (entrySize + TAR_BLOCK - 1) / TAR_BLOCK * TAR_BLOCK;
+        }
+    }
+
+    /**
+     * {@code length} bytes at {@code offset}: a view of the mapping, or a positional read when the
+     * archive is too large to map.
+     */
+    private ByteBuffer region(long offset, int length) throws IOException {
+        if (offset < 0 || offset + length > size) {
+            throw new EOFException("Entry outside of " + path);
+        }
+        if (mapped != null) {
+            ByteBuffer view = mapped.duplicate();
+            view.position((int) offset);
+            view.limit((int) offset + length);
+            return view.slice();
+        }
+        ByteBuffer copy = ByteBuffer.allocate(length);
+        while (copy.hasRemaining()) {
+            if (channel.read(copy, offset + copy.position()) < 0) {
+                throw new EOFException("Entry outside of " + path);
+            }
+        }
+        copy.flip();
+        return copy;
+    }
+
+    private static boolean isZeroBlock(ByteBuffer block) {
+        for (int i = 0; i < TAR_BLOCK; i++) {
+            if (block.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The header checksum is the sum of its bytes with the checksum field itself read as spaces.
+     */
+    private static boolean hasValidChecksum(ByteBuffer header) {
+        long sum = 0;
+        for (int i = 0; i < TAR_BLOCK; i++) {
+            sum += i >= 148 && i < 156 ? ' ' : header.get(i) & 0xFF;
+        }
+        return sum == tarNumber(header, 148, 8);
+    }
+
+    /**
+     * An octal field, or a base-256 one when the first byte has its high bit set.
+     */
+    private static long tarNumber(ByteBuffer header, int offset, int length) {
+        long value = 0;
+        if ((header.get(offset) & 0x80) != 0) {
+            value = header.get(offset) & 0x7F;
+            for (int i = 1; i < length; i++) {
+                value = (value << 8) | (header.get(offset + i) & 0xFF);
+            }
+            return value;
+        }
+        for (int i = 0; i < length; i++) {
+            byte b = header.get(offset + i);
+            if (b >= '0' && b <= '7') {
+                value = (value << 3) | (b - '0');
+            } else if (b == 0 || (b == ' ' && value > 0)) {
+                break;
+            }
+        }
+        return value;
+    }
+
+    private static String ustarName(ByteBuffer header) {
+        String name = trimNul(string(header, 0, 100));
+        if (trimNul(string(header, 257, 6)).startsWith("ustar")) {
+            String prefix = trimNul(string(header, 345, 155));
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    /**
+     * The {@code path} of PAX records, each {@code "<length> <key>=<value>\n"}.
+     */
+    private static String paxPath(String records) {
+        String path = null;
+        for (String record : records.split("\n")) {
+            int space = record.indexOf(' ');
+            if (space >= 0 && record.startsWith("path=", space + 1)) {
+                path = record.substring(space + 1 + "path=".length());
+            }
+        }
+        return path;
+    }
+
+    private static String string(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String trimNul(String value) {
+        int nul = value.indexOf('\0');
+        return nul < 0 ? value : value.substring(0, nul);
+    }
+
+    private static String normalize(String name) {
+        String normalized = name;
+        while (normalized.startsWith("./") || normalized.startsWith("/")) {
+            normalized = normalized.substring(normalized.charAt(0) == '/' ? 1 : 2);
+        }
+        return normalized;
+    }
+
+    private int toInt(long length, String name) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Entry " + name + " in " + path + " is larger than 2 GiB");
+        }
+        return (int) length;
+    }
+
+    private static final class Entry {
+        private final long offset;
+        private final long size;
+        private final long uncompressedSize;
+        private final int method;
+        private final boolean encrypted;
+
+        private Entry(long offset, long size, long uncompressedSize, int method, boolean encrypted) {
+            this.offset = offset;
+            this.size = size;
+            this.uncompressedSize = uncompressedSize;
+            this.method = method;
+            this.encrypted = encrypted;
+        }
+    }
+}
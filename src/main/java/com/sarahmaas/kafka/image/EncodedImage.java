@@ -0,0 +1,34 @@
+package com.sarahmaas.kafka.image;
+
+/**
+ * Bytes of an image as uploaded for OCR, with the factor it was scaled by so coordinates in the
+ * OCR result can be mapped back onto the source image.
+ */
+public class EncodedImage {
+
+    private final byte[] bytes;
+    private final double scale;
+
+    public EncodedImage(byte[] bytes, double scale) {
+        this.bytes = bytes;
+        this.scale = scale;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return Encoded size over source size; 1.0 when the image was not resized
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    /**
+     * Map a coordinate of the encoded image back onto the source image.
+     */
+    public double toSource(double encodedCoordinate) {
+        return encodedCoordinate / scale;
+    }
+}
@@ -0,0 +1,56 @@
+package com.sarahmaas.kafka.image;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * The decoded header band of a page: the widest horizontal strip any crop attempt can ask for,
+ * decoded once. Crops are views into this buffer addressed in full-page ratios, so the pixel rows
+ * match what {@code getSubimage} on the full page would have returned.
+ */
+public class HeaderBand {
+
+    private final BufferedImage band;
+    private final int pageHeight;
+    private final int bandStartRow;
+    private final int subsampling;
+
+    HeaderBand(BufferedImage band, int pageHeight, int bandStartRow, int subsampling) {
+        this.band = band;
+        this.pageHeight = pageHeight;
+        this.bandStartRow = bandStartRow;
+        this.subsampling = subsampling;
+    }
+
+    /**
+     * Crop the rows between two ratios of the full page height.
+     *
+     * @param startRatio Top of the crop as a fraction of the page height
+     * @param endRatio Bottom of the crop as a fraction of the page height
+     * @return A view sharing the band's raster
+     */
+    public BufferedImage crop(double startRatio, double endRatio) {
+        int top = toBandRow((int) (pageHeight * startRatio));
+        int bottom = toBandRow((int) (pageHeight * endRatio));
+        return band.getSubimage(0, top, band.getWidth(), Math.max(1, bottom - top));
+    }
+
+    public BufferedImage getImage() {
+        return band;
+    }
+
+    public int getPageHeight() {
+        return pageHeight;
+    }
+
+    /**
+     * Row of the band that holds the given ratio of the page height.
+     */
+    public int toBandRow(double ratio) {
+        return toBandRow((int) (pageHeight * ratio));
+    }
+
+    private int toBandRow(int pageRow) {
+        int row = (pageRow - bandStartRow) / subsampling;
+        return Math.max(0, Math.min(band.getHeight(), row));
+    }
+}
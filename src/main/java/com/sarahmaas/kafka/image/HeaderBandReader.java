@@ -0,0 +1,91 @@
+package com.sarahmaas.kafka.image;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Decodes only the header band of a page image with {@link ImageReadParam#setSourceRegion},
+ * instead of materialising the full-resolution page with {@code ImageIO.read}.
+ */
+public class HeaderBandReader {
+
+    private final int subsampling;
+
+    /**
+     * @param subsampling Keep every n-th pixel in both directions; 1 decodes at full resolution
+     */
+    public HeaderBandReader(int subsampling) {
+        if (subsampling < 1) {
+            throw new IllegalArgumentException("Subsampling must be at least 1: " + subsampling);
+        }
+        this.subsampling = subsampling;
+    }
+
+    /**
+     * Decode the rows between two ratios of the page height.
+     *
+     * @param imageFile Page image
+     * @param startRatio Top of the band as a fraction of the page height
+     * @param endRatio Bottom of the band as a fraction of the page height
+     * @return The decoded band
+     * @throws IOException if the file cannot be read or no reader supports its format
+     */
+    public HeaderBand read(File imageFile, double startRatio, double endRatio) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imageFile)) {
+            if (input == null) {
+                throw new IOException("Cannot open image: " + imageFile);
+            }
+            return read(input, imageFile.toString(), startRatio, endRatio);
+        }
+    }
+
+    /**
+     * Decode the rows between two ratios of the page height.
+     *
+     * @param source Where the page image is read from
+     * @param imagePath Page image, as named in the page event
+     * @param startRatio Top of the band as a fraction of the page height
+     * @param endRatio Bottom of the band as a fraction of the page height
+     * @return The decoded band
+     * @throws IOException if the image cannot be read or no reader supports its format
+     */
+    public HeaderBand read(ImageSource source, String imagePath, double startRatio, double endRatio) throws IOException {
+        try (ImageInputStream input = source.open(imagePath)) {
+            return read(input, imagePath, startRatio, endRatio);
+        }
+    }
+
+    private HeaderBand read(ImageInputStream input, String name, double startRatio, double endRatio)
+            throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            throw new IOException("No image reader for: " + name);
+        }
+
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            int width = reader.getWidth(0);
+            int height = reader.getHeight(0);
+
+            int startRow = (int) (height * startRatio);
+            int endRow = Math.min(height, (int) (height * endRatio));
+
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(0, startRow, width, Math.max(1, endRow - startRow)));
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+            BufferedImage band = reader.read(0, param);
+            return new HeaderBand(band, height, startRow, subsampling);
+        } finally {
+            reader.dispose();
+        }
+    }
+}
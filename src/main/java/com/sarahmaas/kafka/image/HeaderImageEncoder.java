@@ -0,0 +1,263 @@
+package com.sarahmaas.kafka.image;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Turns a header crop into the bytes uploaded for OCR. The crop can be reduced to 8-bit gray or
+ * to black and white, downscaled so the tallest text line is no taller than needed, and written as
+ * PNG with an explicit compression level or as JPEG with a quality setting.
+ */
+public class HeaderImageEncoder {
+
+    public enum ColorMode { COLOR, GRAY, BINARY }
+
+    public enum Format { PNG, JPEG }
+
+    // Azure Image Analysis rejects images smaller than 50 x 50 pixels
+    private static final int MIN_DIMENSION = 50;
+    // A row counts as text when at least this share of its pixels are dark
+    private static final double TEXT_ROW_DARK_FRACTION = 0.002;
+
+    private final ColorMode colorMode;
+    private final int targetTextHeight;
+    private final Format format;
+    private final int pngCompressionLevel;
+    private final float jpegQuality;
+
+    /**
+     * @param colorMode Pixel format uploaded
+     * @param targetTextHeight Tallest text line in pixels after downscaling; 0 keeps the crop's resolution
+     * @param format Container format
+     * @param pngCompressionLevel Deflate effort 0 (fastest) to 9 (smallest); -1 uses the writer's default
+     * @param jpegQuality JPEG quality between 0 and 1
+     */
+    public HeaderImageEncoder(ColorMode colorMode, int targetTextHeight, Format format,
+                              int pngCompressionLevel, float jpegQuality) {
+        if (pngCompressionLevel < -1 || pngCompressionLevel > 9) {
+            throw new IllegalArgumentException("PNG compression level must be -1 or between 0 and 9: " + pngCompressionLevel);
+        }
+        if (jpegQuality < 0f || jpegQuality > 1f) {
+            throw new IllegalArgumentException("JPEG quality must be between 0 and 1: " + jpegQuality);
+        }
+        this.colorMode = colorMode;
+        this.targetTextHeight = Math.max(0, targetTextHeight);
+        this.format = format;
+        this.pngCompressionLevel = pngCompressionLevel;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * Parse a setting such as {@code gray} or {@code jpeg}, case-insensitively.
+     */
+    public static <E extends Enum<E>> E parse(Class<E> type, String value) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + ": " + value, e);
+        }
+    }
+
+    public EncodedImage encode(BufferedImage image) throws IOException {
+        BufferedImage gray = colorMode == ColorMode.COLOR ? null : toGray(image);
+        int threshold = gray != null ? otsuThreshold(gray) : -1;
+
+        double scale = 1.0;
+        if (targetTextHeight > 0) {
+            BufferedImage measured = gray != null ? gray : toGray(image);
+            int textHeight = tallestTextRun(measured, threshold >= 0 ? threshold : otsuThreshold(measured));
+            if (textHeight > targetTextHeight) {
+                scale = Math.max((double) targetTextHeight / textHeight,
+                        (double) MIN_DIMENSION / Math.min(image.getWidth(), image.getHeight()));
+                scale = Math.min(1.0, scale);
+            }
+        }
+
+        BufferedImage output = gray != null ? gray : image;
+        if (scale < 1.0) {
+            output = resize(output, scale);
+        }
+        if (colorMode == ColorMode.BINARY) {
+            // Threshold after resizing so the interpolated edges are snapped back to black or white
+            output = binarize(output, scale < 1.0 ? otsuThreshold(output) : threshold);
+        }
+        return new EncodedImage(write(output), scale);
+    }
+
+    public ColorMode getColorMode() {
+        return colorMode;
+    }
+
+    public int getTargetTextHeight() {
+        return targetTextHeight;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    private byte[] write(BufferedImage image) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        if (format == Format.PNG && pngCompressionLevel < 0) {
+            ImageIO.write(image, "PNG", buffer);
+            return buffer.toByteArray();
+        }
+
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format == Format.PNG ? "png" : "jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No image writer for: " + format);
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(buffer)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            // Both writers read quality 1.0 as least compression: for PNG that is the fastest deflate
+            param.setCompressionQuality(format == Format.PNG ? 1f - pngCompressionLevel / 9f : jpegQuality);
+            writer.setOutput(output);
+            // The JPEG writer has no 1-bit mode, so black and white crops are written as gray
+            BufferedImage encodable = format == Format.JPEG && image.getType() == BufferedImage.TYPE_BYTE_BINARY
+                    ? toGray(image)
+                    : image;
+            writer.write(null, new IIOImage(encodable, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return buffer.toByteArray();
+    }
+
+    private static BufferedImage toGray(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return image;
+        }
+        BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = gray.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return gray;
+    }
+
+    private static BufferedImage resize(BufferedImage image, double scale) {
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        int type = image.getType() == BufferedImage.TYPE_BYTE_GRAY ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB;
+        BufferedImage resized = new BufferedImage(width, height, type);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private static BufferedImage binarize(BufferedImage gray, int threshold) {
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        BufferedImage binary = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        Raster source = gray.getRaster();
+        WritableRaster target = binary.getRaster();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            source.getSamples(0, y, width, 1, 0, row);
+            for (int x = 0; x < width; x++) {
+                row[x] = row[x] > threshold ? 1 : 0;
+            }
+            target.setSamples(0, y, width, 1, 0, row);
+        }
+        return binary;
+    }
+
+    /**
+     * Gray level separating ink from paper, by Otsu's method over the image histogram.
+     */
+    private static int otsuThreshold(BufferedImage gray) {
+        int width = gray.getWidth();
+        int height = gray.getHeight();
+        long[] histogram = new long[256];
+        Raster raster = gray.getRaster();
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            raster.getSamples(0, y, width, 1, 0, row);
+            for (int value : row) {
+                histogram[value]++;
+            }
+        }
+
+        long total = (long) width * height;
+        double sum = 0;
+        for (int i = 0; i < 256; i++) {
+            sum += (double) i * histogram[i];
+        }
+
+        double sumBackground = 0;
+        long weightBackground = 0;
+        double bestVariance = -1;
+        int threshold = 127;
+        for (int i = 0; i < 256; i++) {
+            weightBackground += histogram[i];
+            if (weightBackground == 0) {
+                continue;
+            }
+            long weightForeground = total - weightBackground;
+            if (weightForeground == 0) {
+                break;
+            }
+            sumBackground += (double) i * histogram[i];
+            double meanBackground = sumBackground / weightBackground;
+            double meanForeground = (sum - sumBackground) / weightForeground;
+            double variance = (double) weightBackground * weightForeground
+                    * (meanBackground - meanForeground) * (meanBackground - meanForeground);
+            if (variance > bestVariance) {
+                bestVariance = variance;
+                threshold = i;
+            }
+        }
+        return threshold;
+    }
+
+    /**
+     * Height of the tallest run of consecutive rows holding dark pixels, which on a header crop is
+     * the heading's line height.
+     *
+     * @return The run height in pixels, or 0 if no row holds text
+     */
+    private static int tallestTextRun(BufferedImage gray, int threshold) {
+        int width = gray.getWidth();
+        int minDarkPixels = Math.max(1, (int) (width * TEXT_ROW_DARK_FRACTION));
+        Raster raster = gray.getRaster();
+        int[] row = new int[width];
+
+        int tallest = 0;
+        int run = 0;
+        for (int y = 0; y < gray.getHeight(); y++) {
+            raster.getSamples(0, y, width, 1, 0, row);
+            int dark = 0;
+            for (int value : row) {
+                if (value <= threshold) {
+                    dark++;
+                }
+            }
+            run = dark >= minDarkPixels ? run + 1 : 0;
+            tallest = Math.max(tallest, run);
+        }
+        // A run covering the whole crop means a dark background or no contrast, not a text line
+        return tallest == gray.getHeight() ? 0 : tallest;
+    }
+}
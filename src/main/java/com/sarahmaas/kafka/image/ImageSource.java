@@ -0,0 +1,34 @@
+package com.sarahmaas.kafka.image;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Where page images are read from, by the {@code imagePath} of a page event.
+ */
+@FunctionalInterface
+public interface ImageSource {
+
+    /**
+     * Open a page image for {@link HeaderBandReader}. The caller closes the stream.
+     *
+     * @throws IOException if the image does not exist or cannot be read
+     */
+    ImageInputStream open(String imagePath) throws IOException;
+
+    /**
+     * Plain image files, each at {@code pathPrefix + imagePath}.
+     */
+    static ImageSource files(String pathPrefix) {
+        return imagePath -> {
+            File imageFile = new File(pathPrefix + imagePath);
+            ImageInputStream input = ImageIO.createImageInputStream(imageFile);
+            if (input == null) {
+                throw new IOException("Cannot open image: " + imageFile);
+            }
+            return input;
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.sarahmaas.kafka.image;
+
+/**
+ * A page ready for OCR: its decoded header band, and optionally the encoded bytes of the first
+ * crop a remote engine will send, so all local image work can happen ahead of the remote call.
+ */
+public class PreparedHeader {
+
+    private final String imagePath;
+    private final HeaderBand band;
+    private final double encodedStartRatio;
+    private final EncodedImage encodedCrop;
+
+    public PreparedHeader(String imagePath, HeaderBand band) {
+        this(imagePath, band, Double.NaN, null);
+    }
+
+    public PreparedHeader(String imagePath, HeaderBand band, double encodedStartRatio, EncodedImage encodedCrop) {
+        this.imagePath = imagePath;
+        this.band = band;
+        this.encodedStartRatio = encodedStartRatio;
+        this.encodedCrop = encodedCrop;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public HeaderBand getBand() {
+        return band;
+    }
+
+    /**
+     * @return This page with the crop starting at the given ratio already encoded
+     */
+    public PreparedHeader withEncodedCrop(double startRatio, EncodedImage crop) {
+        return new PreparedHeader(imagePath, band, startRatio, crop);
+    }
+
+    /**
+     * @return The pre-encoded crop starting at the given ratio, or null if that crop was not prepared
+     */
+    public EncodedImage getEncodedCrop(double startRatio) {
+        return startRatio == encodedStartRatio ? encodedCrop : null;
+    }
+}
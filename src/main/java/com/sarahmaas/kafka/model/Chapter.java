@@ -0,0 +1,24 @@
+package com.sarahmaas.kafka.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A chapter of a book: the heading found on its first page and the pages it spans.
+ */
+@Data
+@AllArgsConstructor
+public class Chapter {
+
+    private String bookId;
+
+    // 1-based position of the chapter in the book
+    private int chapter;
+
+    private String heading;
+
+    private int startPage;
+
+    // Last page before the next chapter, or the last extracted page of the book
+    private int endPage;
+}
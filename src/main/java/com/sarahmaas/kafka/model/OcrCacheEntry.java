@@ -0,0 +1,30 @@
+package com.sarahmaas.kafka.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "ocr-result-cache")
+public class OcrCacheEntry {
+
+    // SHA-256 of the cropped image bytes plus the OCR feature set
+    @Id
+    private String id;
+
+    @Field("result_json")
+    private String resultJson;
+
+    @Field("created_at")
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,24 @@
+package com.sarahmaas.kafka.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Read-side projection of a {@link PageExtraction}: the header text extracted for one page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageHeader {
+
+    @Field("book_id")
+    private String bookId;
+
+    @Field("page_num")
+    private Integer pageNum;
+
+    @Field("extracted_text")
+    private String extractedText;
+}
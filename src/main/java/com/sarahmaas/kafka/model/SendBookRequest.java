@@ -0,0 +1,29 @@
+package com.sarahmaas.kafka.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A whole book to queue for extraction: either its pages, or a directory or zip/tar page bundle
+ * under {@code file-path.prefix} whose images are the pages.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SendBookRequest {
+
+    @JsonProperty("book_id")
+    private String bookId;
+
+    // Pages to send; book_id may be left out of each page
+    @JsonProperty("pages")
+    private List<KafkaMessage> pages;
+
+    // Directory or page bundle relative to file-path.prefix, used when no pages are given
+    @JsonProperty("directory")
+    private String directory;
+}
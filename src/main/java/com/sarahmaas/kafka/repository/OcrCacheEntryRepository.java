@@ -0,0 +1,9 @@
+package com.sarahmaas.kafka.repository;
+
+import com.sarahmaas.kafka.model.OcrCacheEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OcrCacheEntryRepository extends MongoRepository<OcrCacheEntry, String> {
+}
@@ -2,14 +2,18 @@ package com.sarahmaas.kafka.repository;
 
 import com.sarahmaas.kafka.model.PageExtraction;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface PageExtractionRepository extends MongoRepository<PageExtraction, String> {
+public interface PageExtractionRepository extends MongoRepository<PageExtraction, String>, PageExtractionRepositoryCustom {
     
     List<PageExtraction> findByBookId(String bookId);
     
     PageExtraction findByBookIdAndPageNum(String bookId, Integer pageNum);
+
+    @Query(value = "{ 'book_id': ?0 }", fields = "{ 'page_num': 1 }")
+    List<PageExtraction> findPageNumsByBookId(String bookId);
 }
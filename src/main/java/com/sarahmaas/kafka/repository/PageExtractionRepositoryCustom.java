@@ -0,0 +1,43 @@
+package com.sarahmaas.kafka.repository;
+
+import com.sarahmaas.kafka.model.PageExtraction;
+import com.sarahmaas.kafka.model.PageHeader;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Custom operations that cannot be expressed as derived repository queries.
+ */
+public interface PageExtractionRepositoryCustom {
+
+    /**
+     * Insert or update the extraction for its book id and page number.
+     *
+     * @param extraction Extraction to write
+     */
+    void upsert(PageExtraction extraction);
+
+    /**
+     * Upsert all extractions in a single unordered bulk write, keyed by book id and page number.
+     *
+     * @param extractions Extractions collected from one poll
+     * @return Number of documents inserted or matched
+     */
+    int bulkUpsert(List<PageExtraction> extractions);
+
+    /**
+     * Book id, page number and extracted text of every page of a book, in page order. Only those
+     * fields are returned, read through the book_id/page_num index.
+     *
+     * @param bookId Book to read
+     * @return Page headers sorted by page number
+     */
+    List<PageHeader> findHeadersByBookId(String bookId);
+
+    /**
+     * Page headers of every book, ordered by book id and page number, read from a cursor.
+     * The stream must be closed.
+     */
+    Stream<PageHeader> streamAllHeaders();
+}
@@ -0,0 +1,68 @@
+package com.sarahmaas.kafka.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.sarahmaas.kafka.model.PageExtraction;
+import com.sarahmaas.kafka.model.PageHeader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class PageExtractionRepositoryImpl implements PageExtractionRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public void upsert(PageExtraction extraction) {
+        mongoTemplate.upsert(pageQuery(extraction), pageUpdate(extraction), PageExtraction.class);
+    }
+
+    @Override
+    public int bulkUpsert(List<PageExtraction> extractions) {
+        if (extractions.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, PageExtraction.class);
+        for (PageExtraction extraction : extractions) {
+            bulkOps.upsert(pageQuery(extraction), pageUpdate(extraction));
+        }
+
+        BulkWriteResult result = bulkOps.execute();
+        return result.getUpserts().size() + result.getMatchedCount();
+    }
+
+    @Override
+    public List<PageHeader> findHeadersByBookId(String bookId) {
+        Query query = new Query(Criteria.where("book_id").is(bookId))
+                .with(Sort.by(Sort.Direction.ASC, "page_num"));
+        query.fields().include("book_id", "page_num", "extracted_text").exclude("_id");
+        return mongoTemplate.find(query, PageHeader.class, mongoTemplate.getCollectionName(PageExtraction.class));
+    }
+
+    @Override
+    public Stream<PageHeader> streamAllHeaders() {
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.ASC, "book_id", "page_num"));
+        query.fields().include("book_id", "page_num", "extracted_text").exclude("_id");
+        return mongoTemplate.stream(query, PageHeader.class, mongoTemplate.getCollectionName(PageExtraction.class));
+    }
+
+    private static Query pageQuery(PageExtraction extraction) {
+        return new Query(Criteria.where("book_id").is(extraction.getBookId())
+                .and("page_num").is(extraction.getPageNum()));
+    }
+
+    private static Update pageUpdate(PageExtraction extraction) {
+        return new Update()
+                .set("extracted_text", extraction.getExtractedText())
+                .setOnInsert("created_at", extraction.getCreatedAt());
+    }
+}
@@ -0,0 +1,159 @@
+package com.sarahmaas.kafka.serde;
+
+import com.sarahmaas.kafka.model.KafkaMessage;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of a {@link KafkaMessage}:
+ * <pre>
+ * magic (0xB7) | version (1) | flags | [book id] [page num] [image path]
+ * </pre>
+ * Each flag bit marks a field as present. Strings are a varint byte length followed by UTF-8,
+ * the page number is a zigzag varint. The magic byte is a UTF-8 continuation byte, so it can never
+ * start a JSON document and the two formats can share a topic.
+ */
+public final class KafkaMessageCodec {
+
+    public static final byte MAGIC = (byte) 0xB7;
+    public static final byte VERSION = 1;
+
+    private static final int HEADER_BYTES = 3;
+    private static final int HAS_BOOK_ID = 1;
+    private static final int HAS_PAGE_NUM = 1 << 1;
+    private static final int HAS_IMAGE_PATH = 1 << 2;
+
+    private KafkaMessageCodec() {
+    }
+
+    /**
+     * Whether the bytes at the buffer's position are binary-encoded; the position is not moved.
+     */
+    public static boolean isBinary(ByteBuffer buffer) {
+        return buffer.remaining() > 0 && buffer.get(buffer.position()) == MAGIC;
+    }
+
+    public static byte[] encode(KafkaMessage message) {
+        byte[] bookId = utf8(message.getBookId());
+        byte[] imagePath = utf8(message.getImagePath());
+        Integer pageNum = message.getPageNum();
+
+        int flags = (bookId != null ? HAS_BOOK_ID : 0)
+                | (pageNum != null ? HAS_PAGE_NUM : 0)
+                | (imagePath != null ? HAS_IMAGE_PATH : 0);
+        int size = HEADER_BYTES + stringSize(bookId) + stringSize(imagePath)
+                + (pageNum != null ? varintSize(zigzag(pageNum)) : 0);
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.put(MAGIC).put(VERSION).put((byte) flags);
+        if (bookId != null) {
+            putString(out, bookId);
+        }
+        if (pageNum != null) {
+            putVarint(out, zigzag(pageNum));
+        }
+        if (imagePath != null) {
+            putString(out, imagePath);
+        }
+        return out.array();
+    }
+
+    /**
+     * Decode the message at the buffer's position. Strings are read straight from a heap buffer's
+     * backing array; the buffer's position is left after the message.
+     *
+     * @throws IllegalArgumentException if the bytes are not a message of a known version
+     */
+    public static KafkaMessage decode(ByteBuffer buffer) {
+        try {
+            if (buffer.get() != MAGIC) {
+                throw new IllegalArgumentException("Not a binary page event");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported page event version " + version);
+            }
+            int flags = buffer.get();
+
+            KafkaMessage message = new KafkaMessage();
+            if ((flags & HAS_BOOK_ID) != 0) {
+                message.setBookId(getString(buffer));
+            }
+            if ((flags & HAS_PAGE_NUM) != 0) {
+                int zigzag = getVarint(buffer);
+                message.setPageNum((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            if ((flags & HAS_IMAGE_PATH) != 0) {
+                message.setImagePath(getString(buffer));
+            }
+            return message;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated binary page event", e);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] value) {
+        return value == null ? 0 : varintSize(value.length) + value.length;
+    }
+
+    private static void putString(ByteBuffer out, byte[] value) {
+        putVarint(out, value.length);
+        out.put(value);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = getVarint(in);
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("String length " + length + " exceeds the " + in.remaining() + " bytes left");
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
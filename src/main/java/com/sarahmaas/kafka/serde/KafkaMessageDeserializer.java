@@ -0,0 +1,62 @@
+package com.sarahmaas.kafka.serde;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sarahmaas.kafka.model.KafkaMessage;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes page events straight from the record bytes, with no intermediate {@code String}.
+ * Values starting with {@link KafkaMessageCodec#MAGIC} are binary; anything else is parsed as the
+ * JSON the producers used to send, so both formats can be on the topic at once.
+ * <p>
+ * Failures are thrown as {@link SerializationException}; the cause of a malformed JSON value is
+ * Jackson's {@code JsonProcessingException}.
+ */
+public class KafkaMessageDeserializer implements Deserializer<KafkaMessage> {
+
+    // Like Boot's mapper, tolerate fields added by newer producers
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Override
+    public KafkaMessage deserialize(String topic, byte[] data) {
+        return data == null ? null : deserialize(topic, null, ByteBuffer.wrap(data));
+    }
+
+    @Override
+    public KafkaMessage deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data);
+    }
+
+    @Override
+    public KafkaMessage deserialize(String topic, Headers headers, ByteBuffer data) {
+        if (data == null) {
+            return null;
+        }
+        ByteBuffer buffer = data.duplicate();
+        if (KafkaMessageCodec.isBinary(buffer)) {
+            try {
+                return KafkaMessageCodec.decode(buffer);
+            } catch (IllegalArgumentException e) {
+                throw new SerializationException("Malformed binary page event on " + topic, e);
+            }
+        }
+        try {
+            if (buffer.hasArray()) {
+                return OBJECT_MAPPER.readValue(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                        buffer.remaining(), KafkaMessage.class);
+            }
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return OBJECT_MAPPER.readValue(bytes, KafkaMessage.class);
+        } catch (IOException e) {
+            throw new SerializationException("Malformed JSON page event on " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.sarahmaas.kafka.serde;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sarahmaas.kafka.model.KafkaMessage;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Producer value serializer for page events. A {@link KafkaMessage} is written in the format set
+ * by the {@value #FORMAT_CONFIG} producer property, {@code binary} or {@code json} (the default,
+ * readable by consumers that predate the binary format). {@code byte[]} values, such as the
+ * undecodable bytes of a failed record on its way to the retry topic, pass through unchanged,
+ * and strings are written as UTF-8.
+ */
+public class KafkaMessageSerializer implements Serializer<Object> {
+
+    public static final String FORMAT_CONFIG = "book-events.wire-format";
+
+    // Like Boot's mapper, tolerate fields added by newer producers
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private boolean binary;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object format = configs.get(FORMAT_CONFIG);
+        if (format == null || "json".equalsIgnoreCase(format.toString())) {
+            binary = false;
+        } else if ("binary".equalsIgnoreCase(format.toString())) {
+            binary = true;
+        } else {
+            throw new IllegalArgumentException("Unknown " + FORMAT_CONFIG + ": " + format);
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof byte[]) {
+            return (byte[]) data;
+        }
+        if (data instanceof String) {
+            return ((String) data).getBytes(StandardCharsets.UTF_8);
+        }
+        if (data instanceof KafkaMessage) {
+            if (binary) {
+                return KafkaMessageCodec.encode((KafkaMessage) data);
+            }
+            try {
+                return OBJECT_MAPPER.writeValueAsBytes(data);
+            } catch (JsonProcessingException e) {
+                throw new SerializationException("Could not write page event as JSON", e);
+            }
+        }
+        throw new SerializationException("Cannot serialize " + data.getClass().getName() + " as a page event");
+    }
+}
@@ -0,0 +1,38 @@
+package com.sarahmaas.kafka.service;
+
+import com.sarahmaas.kafka.image.PreparedHeader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Remote tier: the Azure Image Analysis READ API, using the configured {@code ocr.mode}.
+ */
+@Component
+@RequiredArgsConstructor
+public class AzureOcrEngine implements OcrEngine {
+
+    private final AzureOcrService azureOcrService;
+
+    @Override
+    public String getName() {
+        return PipelineMetrics.AZURE_ENGINE;
+    }
+
+    @Override
+    public PreparedHeader prepareAhead(PreparedHeader header) {
+        return azureOcrService.encodeFirstCrop(header);
+    }
+
+    @Override
+    public OcrResult recognize(PreparedHeader header) {
+        return new OcrResult(azureOcrService.readTextFromPreparedHeader(header), Double.NaN);
+    }
+
+    @Override
+    public CompletableFuture<OcrResult> recognizeAsync(PreparedHeader header) {
+        return azureOcrService.readTextFromPreparedHeaderAsync(header)
+                .thenApply(text -> new OcrResult(text, Double.NaN));
+    }
+}
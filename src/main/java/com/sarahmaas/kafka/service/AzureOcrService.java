@@ -2,35 +2,85 @@ package com.sarahmaas.kafka.service;
 
 import com.azure.ai.vision.imageanalysis.ImageAnalysisClient;
 import com.azure.ai.vision.imageanalysis.ImageAnalysisClientBuilder;
+import com.azure.ai.vision.imageanalysis.models.DetectedTextLine;
 import com.azure.ai.vision.imageanalysis.models.ImageAnalysisResult;
+import com.azure.ai.vision.imageanalysis.models.ImagePoint;
 import com.azure.ai.vision.imageanalysis.models.VisualFeatures;
 import com.azure.core.credential.KeyCredential;
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpResponse;
 import com.azure.core.util.BinaryData;
+import com.azure.json.JsonProviders;
+import com.sarahmaas.kafka.image.EncodedImage;
+import com.sarahmaas.kafka.image.HeaderImageEncoder;
+import com.sarahmaas.kafka.image.ImageSource;
+import com.sarahmaas.kafka.image.PreparedHeader;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import javax.imageio.ImageIO;
+import jakarta.annotation.PreDestroy;
+
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
 
+@Slf4j
 @Service
 public class AzureOcrService {
 
+    private static final List<VisualFeatures> OCR_FEATURES = Arrays.asList(VisualFeatures.READ);
+
     private final ImageAnalysisClient client;
-    @Value("${file-path.prefix}")
-    private String FILE_PATH_PREFIX;
+    private final OcrResultCache ocrResultCache;
+    private final OcrRateLimiter ocrRateLimiter;
+    private final PipelineMetrics pipelineMetrics;
+    private final CompositeOcrBatcher compositeOcrBatcher;
+    private final HeaderImageEncoder headerImageEncoder;
+    private final HeaderPreparer headerPreparer;
+
+    private final AtomicLong pagesRead = new AtomicLong();
+    private final AtomicLong uploads = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    // iterative: one OCR call per crop ratio; single-call: one call on the widest crop;
+    // composite: the widest crops of several pages stitched into one call
+    @Value("${ocr.mode:iterative}")
+    private String ocrMode;
 
     /**
      * Constructor that initializes the Azure Computer Vision client.     *
      */
     @Autowired
-    public AzureOcrService(CredentialsDecryptorService credentialsDecryptor) {
+    public AzureOcrService(CredentialsDecryptorService credentialsDecryptor,
+                           OcrResultCache ocrResultCache,
+                           OcrRateLimiter ocrRateLimiter,
+                           PipelineMetrics pipelineMetrics,
+                           HeaderPreparer headerPreparer,
+                           @Value("${ocr.composite.max-pages:8}") int compositeMaxPages,
+                           @Value("${ocr.composite.flush-timeout-ms:2000}") long compositeFlushTimeoutMs,
+                           @Value("${ocr.composite.gutter-px:40}") int compositeGutterPx,
+                           @Value("${ocr.composite.max-in-flight:4}") int compositeMaxInFlight,
+                           @Value("${ocr.encode.color-mode:color}") String encodeColorMode,
+                           @Value("${ocr.encode.target-text-height:0}") int encodeTargetTextHeight,
+                           @Value("${ocr.encode.format:png}") String encodeFormat,
+                           @Value("${ocr.encode.png-compression-level:-1}") int encodePngCompressionLevel,
+                           @Value("${ocr.encode.jpeg-quality:0.85}") float encodeJpegQuality) {
 
         // Decrypt Azure credentials
         String endpoint = credentialsDecryptor.decryptAzureOcrHost();
@@ -41,185 +91,345 @@ public class AzureOcrService {
                 .endpoint(endpoint)
                 .credential(new KeyCredential(subscriptionKey))
                 .buildClient();
+
+        this.headerImageEncoder = new HeaderImageEncoder(
+                HeaderImageEncoder.parse(HeaderImageEncoder.ColorMode.class, encodeColorMode),
+                encodeTargetTextHeight,
+                HeaderImageEncoder.parse(HeaderImageEncoder.Format.class, encodeFormat),
+                encodePngCompressionLevel,
+                encodeJpegQuality);
+        this.ocrResultCache = ocrResultCache;
+        this.ocrRateLimiter = ocrRateLimiter;
+        this.pipelineMetrics = pipelineMetrics;
+        this.headerPreparer = headerPreparer;
+        this.compositeOcrBatcher = new CompositeOcrBatcher(
+                image -> {
+                    EncodedImage composite = encode(image);
+                    return textLines(analyze(composite.getBytes()), composite);
+                },
+                compositeMaxPages, compositeFlushTimeoutMs, compositeGutterPx, compositeMaxInFlight);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compositeOcrBatcher.shutdown();
     }
 
     /**
      * Read text from cropped OCR image using Azure Computer Vision API.
      * Iteratively adjusts crop ratio to find text in the image header.
      *
-     * @param imagePath Path to the image file (relative to FILE_PATH_PREFIX)
+     * @param imagePath Path to the image file (relative to {@code file-path.prefix})
      * @return Extracted text as a single string
      */
     public String readTextFromCroppedOcrImage(String imagePath) {
-        double startImageRatio = 0.13;
-        double endImageRatio = 0.19;
-        List<String> extractedText = new ArrayList<>();
+        return readTextFromPreparedHeader(headerPreparer.prepare(imagePath));
+    }
 
-        // Iteratively increase the crop ratio until text is found or max ratio is reached
-        System.out.println("File path prefix = "+FILE_PATH_PREFIX);
-        while ((endImageRatio - startImageRatio) <= 0.1 && extractedText.isEmpty()) {
-            try {
-                // Load image
-                String final_image_path = FILE_PATH_PREFIX +"/"+ imagePath;
-                BufferedImage img = ImageIO.read(new File(final_image_path));
-                int width = img.getWidth();
-                int height = img.getHeight();
-
-                // Calculate crop dimensions
-                int headerHeightStart = (int) (height * startImageRatio);
-                int headerHeightEnd = (int) (height * endImageRatio);
-
-                // Crop the header section
-                BufferedImage headerCrop = img.getSubimage(
-                        0,
-                        headerHeightStart,
-                        width,
-                        headerHeightEnd - headerHeightStart
-                );
+    /**
+     * Alternative method that allows specifying custom file path prefix.
+     *
+     * @param imagePath Path to the image file
+     * @param filePathPrefix Custom prefix for the file path
+     * @return Extracted text as a single string
+     */
+    public String readTextFromCroppedOcrImage(String imagePath, String filePathPrefix) {
+        return readTextFromPreparedHeader(headerPreparer.prepare(ImageSource.files(filePathPrefix), imagePath));
+    }
 
-                // Convert cropped image to bytes
-                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-                ImageIO.write(headerCrop, "PNG", buffer);
-                byte[] headerBytes = buffer.toByteArray();
-
-                try {
-                    long startTime = System.currentTimeMillis();
-                    // Call Azure Image Analysis API with READ feature
-                    BinaryData imageData = BinaryData.fromBytes(headerBytes);
-
-                    ImageAnalysisResult result = client.analyze(
-                            imageData,
-                            Arrays.asList(VisualFeatures.READ),
-                            null
-                    );
-
-                    // Extract text from result
-                    if (result.getRead() != null && result.getRead().getBlocks() != null) {
-                        result.getRead().getBlocks().forEach(block -> {
-                            block.getLines().forEach(line -> {
-                                String text = line.getText();
-                                if (text != null && !text.trim().isEmpty()) {
-                                    extractedText.add(text);
-                                }
-                            });
-                        });
-
-                        long endTime = System.currentTimeMillis();
-                        System.out.println("Time taken for OCR = "+(endTime - startTime)+ " milli seconds ");
-
-                        if (!extractedText.isEmpty()) {
-                            System.out.printf("Extracted text at ratio %.2f-%.2f: %s%n",
-                                    startImageRatio, endImageRatio,
-                                    extractedText.isEmpty() ? "[]" : "[" + extractedText.get(0) + "...]");
-                        }
-                    }
+    /**
+     * Encode the first crop the configured {@code ocr.mode} will send, so only the call itself is
+     * left for {@link #readTextFromPreparedHeader}.
+     */
+    public PreparedHeader encodeFirstCrop(PreparedHeader header) {
+        // Composite mode stitches the raw crop into a shared image, so there is nothing to pre-encode
+        if ("composite".equals(ocrMode)) {
+            return header;
+        }
+        double firstStartRatio = isSingleCall() ? HeaderCropSearch.WIDEST_START_RATIO : HeaderCropSearch.CROP_START_RATIOS[0];
+        try {
+            return header.withEncodedCrop(firstStartRatio,
+                    encode(header.getBand().crop(firstStartRatio, HeaderCropSearch.HEADER_END_RATIO)));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read or process image: " + header.getImagePath(), e);
+        }
+    }
 
-                } catch (Exception e) {
-                    System.out.println("Exception during OCR image processing: " + e.getMessage());
+    /**
+     * Read the header text of a prepared page with the configured {@code ocr.mode}.
+     *
+     * @return Extracted text as a single string
+     */
+    public String readTextFromPreparedHeader(PreparedHeader header) {
+        pagesRead.incrementAndGet();
+        try {
+            List<String> extractedText;
+            if ("composite".equals(ocrMode)) {
+                extractedText = readHeaderLinesComposite(header);
+            } else if (isSingleCall()) {
+                extractedText = readHeaderLinesSingleCall(header);
+            } else {
+                extractedText = readHeaderLinesIteratively(header);
+            }
+            return String.join("", extractedText);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read or process image: " + header.getImagePath(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("OCR operation interrupted", e);
+        }
+    }
 
-                    // Check if it's a rate limit error
-                    if (e.getMessage() != null && e.getMessage().contains("429")) {
-                        System.out.println("Error during OCR image processing: " + e.getMessage());
-                        System.out.println("API call limit reached. Wait for a minute...");
-                        Thread.sleep(60000); // Wait for a minute before continuing
-                        continue; // Repeat the same ratio
-                    }
-                }
+    /**
+     * Start reading the header text of a prepared page. In composite mode the page is queued for
+     * a shared call and this returns at once, so a caller should queue every page it has before
+     * waiting on any of them; the other modes read the page before returning.
+     *
+     * @return Completes with the extracted text as a single string
+     */
+    public CompletableFuture<String> readTextFromPreparedHeaderAsync(PreparedHeader header) {
+        if (!"composite".equals(ocrMode)) {
+            try {
+                return CompletableFuture.completedFuture(readTextFromPreparedHeader(header));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        pagesRead.incrementAndGet();
+        return submitComposite(header).thenApply(lines -> String.join("", lines));
+    }
 
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to read or process image: " + imagePath, e);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("OCR operation interrupted", e);
+    /**
+     * Iteratively increase the crop ratio until text is found or max ratio is reached,
+     * making one OCR call per attempt.
+     */
+    private List<String> readHeaderLinesIteratively(PreparedHeader header)
+            throws IOException, InterruptedException {
+        List<String> extractedText = new ArrayList<>();
+        int iterations = 0;
+
+        for (double startImageRatio : HeaderCropSearch.CROP_START_RATIOS) {
+            iterations++;
+            // Crop the header section from the decoded band
+            EncodedImage crop = encodedCrop(header, startImageRatio);
+            for (OcrTextLine line : textLines(analyze(crop.getBytes()), crop)) {
+                extractedText.add(line.getText());
             }
 
-            // Adjust ratio for next iteration
-            startImageRatio -= 0.01;
+            if (!extractedText.isEmpty()) {
+                log.debug("Extracted text at ratio {}-{}: [{}...]",
+                        startImageRatio, HeaderCropSearch.HEADER_END_RATIO, extractedText.get(0));
+                break;
+            }
         }
 
-        return String.join("", extractedText);
+        pipelineMetrics.recordCropIterations(iterations);
+        return extractedText;
     }
 
     /**
-     * Alternative method that allows specifying custom file path prefix.
-     *
-     * @param imagePath Path to the image file
-     * @param filePathPrefix Custom prefix for the file path
-     * @return Extracted text as a single string
+     * Send the widest crop once and pick the header lines locally.
      */
-    public String readTextFromCroppedOcrImage(String imagePath, String filePathPrefix) {
-        return readTextFromCroppedOcrImageWithPrefix(imagePath, filePathPrefix);
+    private List<String> readHeaderLinesSingleCall(PreparedHeader header)
+            throws IOException, InterruptedException {
+        EncodedImage crop = encodedCrop(header, HeaderCropSearch.WIDEST_START_RATIO);
+        List<OcrTextLine> lines = textLines(analyze(crop.getBytes()), crop);
+        pipelineMetrics.recordCropIterations(1);
+        return HeaderCropSearch.selectHeaderLines(header.getBand(), lines);
     }
 
-    private String readTextFromCroppedOcrImageWithPrefix(String imagePath, String prefix) {
-        double startImageRatio = 0.13;
-        double endImageRatio = 0.19;
-        List<String> extractedText = new ArrayList<>();
+    /**
+     * Queue the widest crop for a composite call shared with other pages and wait for it.
+     */
+    private List<String> readHeaderLinesComposite(PreparedHeader header) {
+        try {
+            return submitComposite(header).join();
+        } catch (CompletionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
 
-        while ((endImageRatio - startImageRatio) <= 0.1 && extractedText.isEmpty()) {
+    /**
+     * Queue the widest crop for a composite call shared with other pages, then pick the header
+     * lines locally from this page's share of the result.
+     */
+    private CompletableFuture<List<String>> submitComposite(PreparedHeader header) {
+        BufferedImage headerCrop = HeaderCropSearch.widestCrop(header.getBand());
+        return compositeOcrBatcher.submit(headerCrop).handle((lines, error) -> {
+            if (error != null) {
+                throw new RuntimeException("Composite OCR failed for image: " + header.getImagePath(),
+                        error instanceof CompletionException ? error.getCause() : error);
+            }
+            pipelineMetrics.recordCropIterations(1);
+            return HeaderCropSearch.selectHeaderLines(header.getBand(), lines);
+        });
+    }
+
+    /**
+     * Call Azure Image Analysis API with READ feature, paced by {@link OcrRateLimiter} and
+     * repeated after a rate limit error.
+     * Results are served from {@link OcrResultCache} when the same image bytes were read before.
+     *
+     * @return The analysis result, or null if the request was rejected as invalid
+     * @throws IllegalStateException if the call failed with a server or network error
+     */
+    private ImageAnalysisResult analyze(byte[] imageBytes) throws InterruptedException {
+        String cacheKey = ocrResultCache.key(imageBytes, OCR_FEATURES.toString());
+        Optional<String> cached = ocrResultCache.get(cacheKey);
+        if (cached.isPresent()) {
             try {
-                BufferedImage img = ImageIO.read(new File(prefix + imagePath));
-                int width = img.getWidth();
-                int height = img.getHeight();
+                return ImageAnalysisResult.fromJson(JsonProviders.createReader(cached.get()));
+            } catch (IOException e) {
+                log.debug("Ignoring unreadable cached OCR result: {}", e.getMessage());
+            }
+        }
 
-                int headerHeightStart = (int) (height * startImageRatio);
-                int headerHeightEnd = (int) (height * endImageRatio);
+        ImageAnalysisResult result = analyzeRemote(imageBytes);
+        if (result != null) {
+            try {
+                ocrResultCache.put(cacheKey, result.toJsonString());
+            } catch (IOException e) {
+                log.debug("Could not cache OCR result: {}", e.getMessage());
+            }
+        }
+        return result;
+    }
 
-                BufferedImage headerCrop = img.getSubimage(
-                        0, headerHeightStart, width, headerHeightEnd - headerHeightStart
+    private ImageAnalysisResult analyzeRemote(byte[] imageBytes) throws InterruptedException {
+        while (true) {
+            ocrRateLimiter.acquire();
+            Timer.Sample attempt = pipelineMetrics.start();
+            try {
+                ImageAnalysisResult result = client.analyze(
+                        BinaryData.fromBytes(imageBytes),
+                        OCR_FEATURES,
+                        null
                 );
+                uploads.incrementAndGet();
+                bytesSent.addAndGet(imageBytes.length);
+                pipelineMetrics.stopOcrAttempt(attempt, PipelineMetrics.AZURE_ENGINE, "success");
+                return result;
+
+            } catch (HttpResponseException e) {
+                log.warn("OCR call failed: {}", e.getMessage());
+
+                // Rate limited: let the shared limiter hold every caller back, then repeat the same crop
+                if (e.getResponse() != null && e.getResponse().getStatusCode() == 429) {
+                    pipelineMetrics.stopOcrAttempt(attempt, PipelineMetrics.AZURE_ENGINE, "rate_limited");
+                    pipelineMetrics.rateLimited();
+                    ocrRateLimiter.onRateLimited(retryAfter(e.getResponse()));
+                    continue;
+                }
+                pipelineMetrics.stopOcrAttempt(attempt, PipelineMetrics.AZURE_ENGINE, "error");
+                pipelineMetrics.failure(PipelineMetrics.OCR);
+                // Server errors are transient: fail the page so it is retried instead of stored empty
+                if (e.getResponse() == null || e.getResponse().getStatusCode() >= 500) {
+                    throw new IllegalStateException("OCR service unavailable: " + e.getMessage(), e);
+                }
+                return null;
 
-                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-                ImageIO.write(headerCrop, "PNG", buffer);
-                byte[] headerBytes = buffer.toByteArray();
-
-                try {
-                    // Call Azure Image Analysis API with READ feature
-                    BinaryData imageData = BinaryData.fromBytes(headerBytes);
-
-                    ImageAnalysisResult result = client.analyze(
-                            imageData,
-                            Arrays.asList(VisualFeatures.READ),
-                            null
-                    );
-
-                    // Extract text from result
-                    if (result.getRead() != null && result.getRead().getBlocks() != null) {
-                        result.getRead().getBlocks().forEach(block -> {
-                            block.getLines().forEach(line -> {
-                                String text = line.getText();
-                                if (text != null && !text.trim().isEmpty()) {
-                                    extractedText.add(text);
-                                }
-                            });
-                        });
-
-                        if (!extractedText.isEmpty()) {
-                            System.out.printf("Extracted text at ratio %.2f-%.2f: %s%n",
-                                    startImageRatio, endImageRatio,
-                                    "[" + extractedText.get(0) + "...]");
-                        }
-                    }
+            } catch (Exception e) {
+                pipelineMetrics.stopOcrAttempt(attempt, PipelineMetrics.AZURE_ENGINE, "error");
+                pipelineMetrics.failure(PipelineMetrics.OCR);
+                // Network failures are transient as well
+                throw new IllegalStateException("OCR call failed: " + e.getMessage(), e);
+            }
+        }
+    }
 
-                } catch (Exception e) {
-                    System.out.println("Exception during OCR image processing: " + e.getMessage());
-                    if (e.getMessage() != null && e.getMessage().contains("429")) {
-                        System.out.println("API call limit reached. Wait for a minute...");
-                        Thread.sleep(60000);
-                        continue;
-                    }
-                }
+    /**
+     * Delay requested by a 429 response, from {@code retry-after-ms} or {@code Retry-After}
+     * (either delta-seconds or an HTTP date).
+     *
+     * @return The delay, or null if the response carries none
+     */
+    private static Duration retryAfter(HttpResponse response) {
+        try {
+            String retryAfterMs = response.getHeaderValue(HttpHeaderName.RETRY_AFTER_MS);
+            if (retryAfterMs == null) {
+                retryAfterMs = response.getHeaderValue(HttpHeaderName.X_MS_RETRY_AFTER_MS);
+            }
+            if (retryAfterMs != null) {
+                return Duration.ofMillis(Long.parseLong(retryAfterMs.trim()));
+            }
 
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to read or process image: " + imagePath, e);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("OCR operation interrupted", e);
+            String retryAfter = response.getHeaderValue(HttpHeaderName.RETRY_AFTER);
+            if (retryAfter == null) {
+                return null;
+            }
+            if (retryAfter.trim().matches("\\d+")) {
+                return Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
             }
+            ZonedDateTime retryAt = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Duration.between(ZonedDateTime.now(), retryAt);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Upload volume of the OCR calls actually made, excluding cache hits.
+     */
+    public Map<String, Object> getPayloadStats() {
+        long pages = pagesRead.get();
+        long sent = bytesSent.get();
+        long calls = uploads.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("colorMode", headerImageEncoder.getColorMode());
+        stats.put("targetTextHeight", headerImageEncoder.getTargetTextHeight());
+        stats.put("format", headerImageEncoder.getFormat());
+        stats.put("pagesRead", pages);
+        stats.put("uploads", calls);
+        stats.put("bytesSent", sent);
+        stats.put("bytesPerUpload", calls == 0 ? 0 : sent / calls);
+        stats.put("bytesPerPage", pages == 0 ? 0 : sent / pages);
+        return stats;
+    }
 
-            startImageRatio -= 0.01;
+    /**
+     * Text lines of a result, with vertical centres mapped back from the encoded image onto the crop.
+     */
+    private static List<OcrTextLine> textLines(ImageAnalysisResult result, EncodedImage encoded) {
+        List<OcrTextLine> lines = new ArrayList<>();
+        if (result != null && result.getRead() != null && result.getRead().getBlocks() != null) {
+            result.getRead().getBlocks().forEach(block -> {
+                block.getLines().forEach(line -> {
+                    String text = line.getText();
+                    if (text != null && !text.trim().isEmpty()) {
+                        lines.add(new OcrTextLine(text, encoded.toSource(verticalCentre(line))));
+                    }
+                });
+            });
         }
+        return lines;
+    }
+
+    private static double verticalCentre(DetectedTextLine line) {
+        IntSummaryStatistics ys = line.getBoundingPolygon().stream()
+                .mapToInt(ImagePoint::getY)
+                .summaryStatistics();
+        return (ys.getMin() + ys.getMax()) / 2.0;
+    }
+
+    private EncodedImage encodedCrop(PreparedHeader header, double startRatio) throws IOException {
+        EncodedImage prepared = header.getEncodedCrop(startRatio);
+        return prepared != null
+                ? prepared
+                : encode(header.getBand().crop(startRatio, HeaderCropSearch.HEADER_END_RATIO));
+    }
+
+    private EncodedImage encode(BufferedImage image) throws IOException {
+        Timer.Sample cropEncode = pipelineMetrics.start();
+        try {
+            return headerImageEncoder.encode(image);
+        } finally {
+            pipelineMetrics.stop(cropEncode, PipelineMetrics.CROP_ENCODE);
+        }
+    }
 
-        return String.join("", extractedText);
+    // Modes that read only the widest crop and select the header lines locally
+    private boolean isSingleCall() {
+        return "single-call".equals(ocrMode) || "composite".equals(ocrMode);
     }
-}
\ No newline at end of file
+}
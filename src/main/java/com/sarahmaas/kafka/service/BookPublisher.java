@@ -0,0 +1,145 @@
+package com.sarahmaas.kafka.service;
+
+import com.sarahmaas.kafka.model.KafkaMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Queues every page of a book in one go. Pages are sent without waiting on each other, keyed by
+ * book id so a book stays on one partition in page order, and the producer's batching, linger
+ * and compression settings ({@code spring.kafka.producer}) pack them into a few requests. Pages
+ * are written in the producer's wire format ({@code KafkaMessageSerializer}).
+ */
+@Slf4j
+@Service
+public class BookPublisher {
+
+    private static final Pattern PAGE_NUMBER = Pattern.compile("(\\d{1,9})(?!.*\\d)");
+    private static final List<String> IMAGE_EXTENSIONS = List.of(".png", ".jpg", ".jpeg", ".tif", ".tiff", ".bmp");
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String topic;
+    private final PageImageSource pageImageSource;
+    private final Path filePathPrefix;
+    private final long sendTimeoutMs;
+
+    public BookPublisher(KafkaTemplate<String, Object> kafkaTemplate,
+                         PageImageSource pageImageSource,
+                         @Value("${spring.kafka.topic:mytopic}") String topic,
+                         @Value("${file-path.prefix}") String filePathPrefix,
+                         @Value("${book-events.publish.send-timeout-ms:30000}") long sendTimeoutMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.pageImageSource = pageImageSource;
+        this.topic = topic;
+        this.filePathPrefix = Paths.get(filePathPrefix).toAbsolutePath().normalize();
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Send one page, keyed by its book id.
+     */
+    public CompletableFuture<SendResult<String, Object>> send(KafkaMessage page) {
+        return kafkaTemplate.send(topic, page.getBookId(), page);
+    }
+
+    /**
+     * Send every page and wait for the broker to acknowledge them all.
+     *
+     * @return Number of pages acknowledged; the rest failed or timed out
+     */
+    public int sendAll(List<KafkaMessage> pages) throws InterruptedException {
+        AtomicInteger acknowledged = new AtomicInteger();
+        List<CompletableFuture<?>> sends = new ArrayList<>(pages.size());
+        for (KafkaMessage page : pages) {
+            sends.add(send(page).whenComplete((result, error) -> {
+                if (error == null) {
+                    acknowledged.incrementAndGet();
+                } else {
+                    log.error("Could not send page {} of book {}: {}", page.getPageNum(), page.getBookId(), error.getMessage());
+                }
+            }));
+        }
+        kafkaTemplate.flush();
+
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Timed out after {}ms waiting for {} page sends", sendTimeoutMs, pages.size());
+        } catch (ExecutionException e) {
+            // Failed sends are already logged and not counted
+        }
+        return acknowledged.get();
+    }
+
+    /**
+     * The images of a directory or page bundle under {@code file-path.prefix} as pages of a book,
+     * in page number order, so {@code page_2} comes before {@code page_10}. Pages of a bundle are
+     * addressed as {@code <bundle>!/<entry>}. The page number is the last number in the file name,
+     * or the position in the name-ordered listing when the name has none.
+     *
+     * @throws IllegalArgumentException if the directory is outside {@code file-path.prefix} or missing
+     */
+    public List<KafkaMessage> listPages(String bookId, String directory) throws IOException {
+        Path dir = filePathPrefix.resolve(directory).normalize();
+        if (!dir.startsWith(filePathPrefix) || !(Files.isDirectory(dir) || Files.isRegularFile(dir))) {
+            throw new IllegalArgumentException("Not a directory or page bundle under file-path.prefix: " + directory);
+        }
+
+        List<String> imagePaths;
+        if (Files.isDirectory(dir)) {
+            try (Stream<Path> files = Files.list(dir)) {
+                imagePaths = files.filter(Files::isRegularFile)
+                        .sorted()
+                        .map(file -> filePathPrefix.relativize(file).toString().replace('\\', '/'))
+                        .collect(Collectors.toList());
+            }
+        } else {
+            String bundle = filePathPrefix.relativize(dir).toString().replace('\\', '/');
+            imagePaths = pageImageSource.entries(bundle).stream()
+                    .map(entry -> bundle + PageImageSource.ENTRY_SEPARATOR + entry)
+                    .collect(Collectors.toList());
+        }
+        imagePaths.removeIf(imagePath -> !isImage(imagePath));
+
+        List<KafkaMessage> pages = new ArrayList<>(imagePaths.size());
+        for (int i = 0; i < imagePaths.size(); i++) {
+            String imagePath = imagePaths.get(i);
+            Matcher number = PAGE_NUMBER.matcher(imagePath.substring(imagePath.lastIndexOf('/') + 1));
+            int pageNum = number.find() ? Integer.parseInt(number.group(1)) : i + 1;
+            pages.add(new KafkaMessage(bookId, pageNum, imagePath));
+        }
+        // Stable, so pages sharing a number keep their name order
+        pages.sort(Comparator.comparingInt(KafkaMessage::getPageNum));
+        return pages;
+    }
+
+    private static boolean isImage(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        return IMAGE_EXTENSIONS.stream().anyMatch(lower::endsWith);
+    }
+}
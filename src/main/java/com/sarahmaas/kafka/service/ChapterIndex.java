@@ -0,0 +1,233 @@
+package com.sarahmaas.kafka.service;
+
+import com.sarahmaas.kafka.model.Chapter;
+import com.sarahmaas.kafka.model.PageExtraction;
+import com.sarahmaas.kafka.model.PageHeader;
+import com.sarahmaas.kafka.repository.PageExtractionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Page to chapter mapping of every book. A page whose header crop holds text starts a chapter
+ * and that text is its heading; a page with an empty header belongs to the chapter before it.
+ * Each book keeps its chapter-start pages in a sorted {@code int[]}, so finding the chapter of a
+ * page is a binary search, and is updated as the consumer persists pages. The index is rebuilt
+ * from a cursor over the whole collection on a background thread once the application is ready.
+ * The listeners are already running by then, so pages saved during the rebuild are remembered
+ * and their cursor rows, which may be older, are skipped.
+ */
+@Slf4j
+@Service
+public class ChapterIndex {
+
+    private final PageExtractionRepository repository;
+    private final boolean rebuildOnStartup;
+
+    private final Map<String, BookChapters> books = new ConcurrentHashMap<>();
+    private volatile boolean rebuilding;
+    private volatile boolean rebuilt;
+
+    public ChapterIndex(PageExtractionRepository repository,
+                        @Value("${book-events.chapter-index.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.repository = repository;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRebuild() {
+        if (!rebuildOnStartup) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("chapter-index-rebuild-");
+        threadFactory.setDaemon(true);
+        threadFactory.newThread(this::rebuild).start();
+    }
+
+    /**
+     * Stream the whole collection into the index. Pages saved while this runs win over their
+     * cursor rows.
+     */
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        long pages = 0;
+        rebuilding = true;
+        try (Stream<PageHeader> headers = repository.streamAllHeaders()) {
+            for (PageHeader header : (Iterable<PageHeader>) headers::iterator) {
+                add(header.getBookId(), header.getPageNum(), header.getExtractedText(), true);
+                pages++;
+            }
+            rebuilt = true;
+            log.info("Chapter index rebuilt from {} pages of {} books in {}ms",
+                    pages, books.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Could not rebuild chapter index after {} pages, serving pages saved from now on: {}",
+                    pages, e.getMessage());
+        } finally {
+            rebuilding = false;
+            for (BookChapters book : books.values()) {
+                synchronized (book) {
+                    book.savedDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply a page the consumer has just persisted.
+     */
+    public void saved(PageExtraction extraction) {
+        add(extraction.getBookId(), extraction.getPageNum(), extraction.getExtractedText(), false);
+    }
+
+    /**
+     * @return The chapter holding the page, or empty if the book is unknown or the page comes
+     * before its first chapter
+     */
+    public Optional<Chapter> chapterOf(String bookId, int pageNum) {
+        BookChapters book = books.get(bookId);
+        if (book == null) {
+            return Optional.empty();
+        }
+        synchronized (book) {
+            int index = book.indexOf(pageNum);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            return index < 0 ? Optional.empty() : Optional.of(book.chapter(bookId, index));
+        }
+    }
+
+    /**
+     * @param chapter 1-based chapter number
+     */
+    public Optional<Chapter> chapter(String bookId, int chapter) {
+        BookChapters book = books.get(bookId);
+        if (book == null) {
+            return Optional.empty();
+        }
+        synchronized (book) {
+            return chapter < 1 || chapter > book.count ? Optional.empty() : Optional.of(book.chapter(bookId, chapter - 1));
+        }
+    }
+
+    public List<Chapter> chapters(String bookId) {
+        BookChapters book = books.get(bookId);
+        if (book == null) {
+            return new ArrayList<>();
+        }
+        synchronized (book) {
+            List<Chapter> chapters = new ArrayList<>(book.count);
+            for (int i = 0; i < book.count; i++) {
+                chapters.add(book.chapter(bookId, i));
+            }
+            return chapters;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long chapters = 0;
+        for (BookChapters book : books.values()) {
+            synchronized (book) {
+                chapters += book.count;
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rebuilding", rebuilding);
+        stats.put("rebuilt", rebuilt);
+        stats.put("books", books.size());
+        stats.put("chapters", chapters);
+        return stats;
+    }
+
+    /**
+     * @param fromCursor Whether the page comes from the rebuild cursor rather than a save
+     */
+    private void add(String bookId, Integer pageNum, String extractedText, boolean fromCursor) {
+        if (bookId == null || pageNum == null) {
+            return;
+        }
+        BookChapters book = books.computeIfAbsent(bookId, id -> new BookChapters());
+        synchronized (book) {
+            if (fromCursor) {
+                if (book.savedDuringRebuild != null && book.savedDuringRebuild.contains(pageNum)) {
+                    return;
+                }
+            } else if (rebuilding) {
+                if (book.savedDuringRebuild == null) {
+                    book.savedDuringRebuild = new HashSet<>();
+                }
+                book.savedDuringRebuild.add(pageNum);
+            }
+            book.put(pageNum, extractedText == null || extractedText.isBlank() ? null : extractedText);
+        }
+    }
+
+    /**
+     * Chapter-start pages of one book, sorted, with their headings at the same index. The arrays
+     * grow by doubling; pages mostly arrive in order, so inserts are usually appends.
+     */
+    private static final class BookChapters {
+        private int[] startPages = new int[16];
+        private String[] headings = new String[16];
+        private int count;
+        private int lastPage = Integer.MIN_VALUE;
+        // Pages saved while the index is being rebuilt, whose cursor rows are skipped
+        private Set<Integer> savedDuringRebuild;
+
+        private int indexOf(int pageNum) {
+            return Arrays.binarySearch(startPages, 0, count, pageNum);
+        }
+
+        /**
+         * Record a page, starting a chapter when it has a heading and ending one it used to start
+         * when it no longer has.
+         */
+        private void put(int pageNum, String heading) {
+            lastPage = Math.max(lastPage, pageNum);
+            int index = indexOf(pageNum);
+            if (index >= 0) {
+                if (heading != null) {
+                    headings[index] = heading;
+                } else {
+                    System.arraycopy(startPages, index + 1, startPages, index, count - index - 1);
+                    System.arraycopy(headings, index + 1, headings, index, count - index - 1);
+                    headings[--count] = null;
+                }
+                return;
+            }
+            if (heading == null) {
+                return;
+            }
+            if (count == startPages.length) {
+                startPages = Arrays.copyOf(startPages, count * 2);
+                headings = Arrays.copyOf(headings, count * 2);
+            }
+            int insertAt = -index - 1;
+            System.arraycopy(startPages, insertAt, startPages, insertAt + 1, count - insertAt);
+            System.arraycopy(headings, insertAt, headings, insertAt + 1, count - insertAt);
+            startPages[insertAt] = pageNum;
+            headings[insertAt] = heading;
+            count++;
+        }
+
+        private Chapter chapter(String bookId, int index) {
+            int endPage = index + 1 < count ? startPages[index + 1] - 1 : Math.max(lastPage, startPages[index]);
+            return new Chapter(bookId, index + 1, headings[index], startPages[index], endPage);
+        }
+    }
+}
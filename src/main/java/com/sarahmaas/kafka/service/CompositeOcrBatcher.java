@@ -0,0 +1,197 @@
+package com.sarahmaas.kafka.service;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stacks the header crops of several pages vertically, separated by blank gutters, into one
+ * image so a single READ call covers up to {@code maxPages} pages. Returned lines are split back
+ * to their pages by the vertical centre of their bounding boxes. A partial batch is sent once
+ * its oldest page has waited {@code flushTimeoutMs}. At most {@code maxInFlight} composite calls
+ * run at once; further full batches queue for a sender.
+ */
+class CompositeOcrBatcher {
+
+    /**
+     * Reads the lines of a stitched image; centres are relative to its top.
+     */
+    interface LineReader {
+        List<OcrTextLine> read(BufferedImage image) throws Exception;
+    }
+
+    private final LineReader lineReader;
+    private final int maxPages;
+    private final long flushTimeoutMs;
+    private final int gutterPx;
+
+    private final ScheduledExecutorService flushScheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("ocr-composite-flush-"));
+    private final ExecutorService sender;
+
+    private List<PendingPage> pending = new ArrayList<>();
+    private ScheduledFuture<?> flushTask;
+    private boolean shutdown;
+
+    CompositeOcrBatcher(LineReader lineReader, int maxPages, long flushTimeoutMs, int gutterPx, int maxInFlight) {
+        this.lineReader = lineReader;
+        this.maxPages = maxPages;
+        this.flushTimeoutMs = flushTimeoutMs;
+        this.gutterPx = gutterPx;
+        this.sender = Executors.newFixedThreadPool(Math.max(1, maxInFlight),
+                new CustomizableThreadFactory("ocr-composite-"));
+    }
+
+    /**
+     * Queue a page's header crop for the next composite call.
+     *
+     * @return The page's lines, with centres relative to the top of its own crop
+     */
+    CompletableFuture<List<OcrTextLine>> submit(BufferedImage headerCrop) {
+        PendingPage page = new PendingPage(headerCrop);
+        List<PendingPage> full = null;
+
+        synchronized (this) {
+            if (shutdown) {
+                page.result.completeExceptionally(new IllegalStateException("Composite OCR batcher is shut down"));
+                return page.result;
+            }
+            pending.add(page);
+            if (pending.size() >= maxPages) {
+                full = drain();
+            } else if (pending.size() == 1) {
+                flushTask = flushScheduler.schedule(this::flush, flushTimeoutMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (full != null) {
+            dispatch(full);
+        }
+        return page.result;
+    }
+
+    /**
+     * Fail the pages still waiting for a composite, and those of batches not yet sent, so no
+     * caller waits on a call that will never be made. Calls in flight are interrupted.
+     */
+    void shutdown() {
+        List<PendingPage> unsent;
+        synchronized (this) {
+            shutdown = true;
+            unsent = drain();
+        }
+        flushScheduler.shutdownNow();
+        IllegalStateException stopped = new IllegalStateException("Composite OCR batcher is shut down");
+        unsent.forEach(page -> page.result.completeExceptionally(stopped));
+        for (Runnable queued : sender.shutdownNow()) {
+            ((Send) queued).batch.forEach(page -> page.result.completeExceptionally(stopped));
+        }
+    }
+
+    private void flush() {
+        List<PendingPage> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+        }
+    }
+
+    private void dispatch(List<PendingPage> batch) {
+        try {
+            sender.execute(new Send(batch));
+        } catch (RejectedExecutionException e) {
+            batch.forEach(page -> page.result.completeExceptionally(e));
+        }
+    }
+
+    private List<PendingPage> drain() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        List<PendingPage> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void send(List<PendingPage> batch) {
+        try {
+            int width = 0;
+            int height = gutterPx * (batch.size() - 1);
+            for (PendingPage page : batch) {
+                width = Math.max(width, page.crop.getWidth());
+                height += page.crop.getHeight();
+            }
+
+            BufferedImage composite = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = composite.createGraphics();
+            try {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                int top = 0;
+                for (PendingPage page : batch) {
+                    page.top = top;
+                    graphics.drawImage(page.crop, 0, top, null);
+                    top += page.crop.getHeight() + gutterPx;
+                }
+            } finally {
+                graphics.dispose();
+            }
+
+            List<List<OcrTextLine>> pageLines = new ArrayList<>();
+            batch.forEach(page -> pageLines.add(new ArrayList<>()));
+            for (OcrTextLine line : lineReader.read(composite)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    PendingPage page = batch.get(i);
+                    double centre = line.getCentreY() - page.top;
+                    if (centre >= 0 && centre < page.crop.getHeight()) {
+                        pageLines.get(i).add(new OcrTextLine(line.getText(), centre));
+                        break;
+                    }
+                }
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(pageLines.get(i));
+            }
+        } catch (Throwable e) {
+            batch.forEach(page -> page.result.completeExceptionally(e));
+        }
+    }
+
+    private class Send implements Runnable {
+        private final List<PendingPage> batch;
+
+        private Send(List<PendingPage> batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            send(batch);
+        }
+    }
+
+    private static class PendingPage {
+        private final BufferedImage crop;
+        private final CompletableFuture<List<OcrTextLine>> result = new CompletableFuture<>();
+        private int top;
+
+        private PendingPage(BufferedImage crop) {
+            this.crop = crop;
+        }
+    }
+}
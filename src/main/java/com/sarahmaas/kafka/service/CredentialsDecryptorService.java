@@ -16,7 +16,7 @@ import java.util.Base64;
 public class CredentialsDecryptorService {
 
     @Autowired
-    private VaultTokenService vaultService;
+    private SecretBootstrap secretBootstrap;
 
     public CredentialsDecryptorService(){}
     /**
@@ -26,7 +26,7 @@ public class CredentialsDecryptorService {
      * @throws IllegalStateException if decryption fails
      */
     public String decryptAzureOcrApi() {
-        String encryptionKey = vaultService.fetchDecryptionKeyFromVault("FERNET_KEY_AZURE_OCR_KEY");
+        String encryptionKey = secretBootstrap.vaultSecret("FERNET_KEY_AZURE_OCR_KEY");
         
         if (encryptionKey == null || encryptionKey.isEmpty()) {
             throw new IllegalStateException("FERNET_KEY_AZURE_OCR_KEY not set");
@@ -47,7 +47,7 @@ public class CredentialsDecryptorService {
      * @throws IllegalStateException if decryption fails
      */
     public String decryptAzureOcrHost() {
-        String encryptionKey = vaultService.fetchDecryptionKeyFromVault("FERNET_KEY_AZURE_OCR_HOST");
+        String encryptionKey = secretBootstrap.vaultSecret("FERNET_KEY_AZURE_OCR_HOST");
         
         if (encryptionKey == null || encryptionKey.isEmpty()) {
             throw new IllegalStateException("FERNET_KEY_AZURE_OCR_HOST not set");
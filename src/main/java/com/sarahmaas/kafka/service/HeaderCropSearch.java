@@ -0,0 +1,87 @@
+package com.sarahmaas.kafka.service;
+
+import com.sarahmaas.kafka.image.HeaderBand;
+import lombok.extern.slf4j.Slf4j;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geometry of the page header search shared by the OCR engines: start at 0.13-0.19 of the page
+ * height and widen upwards by 0.01 until text is found or the crop spans 0.1 of the page.
+ */
+@Slf4j
+final class HeaderCropSearch {
+
+    static final double HEADER_START_RATIO = 0.13;
+    static final double HEADER_END_RATIO = 0.19;
+    static final double MAX_HEADER_SPAN = 0.1;
+    static final double RATIO_STEP = 0.01;
+    static final double[] CROP_START_RATIOS = cropStartRatios();
+    static final double WIDEST_START_RATIO = CROP_START_RATIOS[CROP_START_RATIOS.length - 1];
+
+    private HeaderCropSearch() {
+    }
+
+    /**
+     * The widest crop the search can reach, which single-call style engines read in one go.
+     */
+    static BufferedImage widestCrop(HeaderBand headerBand) {
+        return headerBand.crop(WIDEST_START_RATIO, HEADER_END_RATIO);
+    }
+
+    /**
+     * Repeat the narrowest-first crop search over lines read from the widest crop: a line belongs
+     * to a crop when its vertical centre lies inside it, and the narrowest crop holding any line
+     * wins, which mirrors where the iterative search would have stopped.
+     */
+    static List<String> selectHeaderLines(HeaderBand headerBand, List<OcrTextLine> lines) {
+        List<String> extractedText = new ArrayList<>();
+        for (OcrTextLine line : selectHeaderTextLines(headerBand, lines)) {
+            extractedText.add(line.getText());
+        }
+        return extractedText;
+    }
+
+    /**
+     * {@link #selectHeaderLines}, keeping the selected lines whole.
+     */
+    static List<OcrTextLine> selectHeaderTextLines(HeaderBand headerBand, List<OcrTextLine> lines) {
+        List<OcrTextLine> extractedText = new ArrayList<>();
+        if (lines.isEmpty()) {
+            return extractedText;
+        }
+
+        int widestTop = headerBand.toBandRow(WIDEST_START_RATIO);
+        for (double startImageRatio : CROP_START_RATIOS) {
+            int cropTop = headerBand.toBandRow(startImageRatio) - widestTop;
+            for (OcrTextLine line : lines) {
+                if (line.getCentreY() >= cropTop) {
+                    extractedText.add(line);
+                }
+            }
+
+            if (!extractedText.isEmpty()) {
+                log.debug("Extracted text at ratio {}-{}: [{}...]",
+                        startImageRatio, HEADER_END_RATIO, extractedText.get(0).getText());
+                break;
+            }
+        }
+
+        return extractedText;
+    }
+
+    /**
+     * Start ratios tried by the header search, narrowest crop first.
+     */
+    private static double[] cropStartRatios() {
+        List<Double> ratios = new ArrayList<>();
+        double startImageRatio = HEADER_START_RATIO;
+        while ((HEADER_END_RATIO - startImageRatio) <= MAX_HEADER_SPAN) {
+            ratios.add(startImageRatio);
+            startImageRatio -= RATIO_STEP;
+        }
+        return ratios.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+}
@@ -0,0 +1,53 @@
+package com.sarahmaas.kafka.service;
+
+import com.sarahmaas.kafka.image.HeaderBand;
+import com.sarahmaas.kafka.image.HeaderBandReader;
+import com.sarahmaas.kafka.image.ImageSource;
+import com.sarahmaas.kafka.image.PreparedHeader;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+
+/**
+ * The image work every {@link OcrEngine} needs: decode the widest header band the crop search
+ * can use from a page image. Work only one engine needs, such as encoding the crop a remote
+ * engine uploads, is done by that engine, ahead of time through {@link OcrEngine#prepareAhead}.
+ */
+@Service
+public class HeaderPreparer {
+
+    private final PageImageSource pageImageSource;
+    private final PipelineMetrics pipelineMetrics;
+    private final HeaderBandReader headerBandReader;
+
+    public HeaderPreparer(PageImageSource pageImageSource,
+                          PipelineMetrics pipelineMetrics,
+                          @Value("${ocr.image.subsampling:1}") int subsampling) {
+        this.pageImageSource = pageImageSource;
+        this.pipelineMetrics = pipelineMetrics;
+        this.headerBandReader = new HeaderBandReader(subsampling);
+    }
+
+    /**
+     * @param imagePath Path to the image file (relative to {@code file-path.prefix}), or
+     *                  {@code <bundle>!/<entry>} for a page inside a book bundle ({@link PageImageSource})
+     */
+    public PreparedHeader prepare(String imagePath) {
+        return prepare(pageImageSource, imagePath);
+    }
+
+    public PreparedHeader prepare(ImageSource imageSource, String imagePath) {
+        try {
+            Timer.Sample imageLoad = pipelineMetrics.start();
+            HeaderBand headerBand = headerBandReader.read(imageSource, imagePath,
+                    HeaderCropSearch.WIDEST_START_RATIO, HeaderCropSearch.HEADER_END_RATIO);
+            pipelineMetrics.stop(imageLoad, PipelineMetrics.IMAGE_LOAD);
+            return new PreparedHeader(imagePath, headerBand);
+        } catch (IOException e) {
+            pipelineMetrics.failure(PipelineMetrics.IMAGE_LOAD);
+            throw new RuntimeException("Failed to read or process image: " + imagePath, e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.sarahmaas.kafka.service;
+
+import com.sarahmaas.kafka.image.PreparedHeader;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Reads the header text of a prepared page. Implementations range from the remote Azure READ
+ * API to in-process engines; {@link TieredOcrEngine} chooses between them per page.
+ */
+public interface OcrEngine {
+
+    /**
+     * Short name used in logs and per-tier metrics.
+     */
+    String getName();
+
+    /**
+     * Do this engine's own local work on a page ahead of {@link #recognize}, on a prefetch
+     * thread, such as encoding the crop it will upload. The default has none.
+     *
+     * @param header Page with its header band already decoded
+     * @return The page to pass to {@link #recognize} later
+     */
+    default PreparedHeader prepareAhead(PreparedHeader header) {
+        return header;
+    }
+
+    /**
+     * Read the header text of a page.
+     *
+     * @param header Page with its header band already decoded
+     * @return The header text and the engine's confidence in it
+     */
+    OcrResult recognize(PreparedHeader header);
+
+    /**
+     * Start reading the header text of a page. Engines that batch pages into shared calls return
+     * before the page is read, so a caller with several pages should start them all before
+     * waiting on any; the default reads the page before returning.
+     *
+     * @param header Page with its header band already decoded
+     * @return Completes with the header text, or exceptionally if the page could not be read
+     */
+    default CompletableFuture<OcrResult> recognizeAsync(PreparedHeader header) {
+        try {
+            return CompletableFuture.completedFuture(recognize(header));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.sarahmaas.kafka.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide token bucket for Azure OCR calls. Every caller reserves the next free slot of the
+ * calls-per-minute budget and sleeps until it comes round, so calls are spread evenly at the quota
+ * ceiling instead of bursting into 429s. A 429 holds every caller back for the server's
+ * {@code Retry-After}: a caller whose slot falls inside the hold-back, including one already
+ * asleep, gives it up and reserves a fresh slot after it. A slot is never reserved more than
+ * {@code ocr.rate-limit.max-wait-ms} ahead, so a deep queue fails pages for retry instead of
+ * holding a listener past {@code max.poll.interval.ms}.
+ */
+@Slf4j
+@Service
+public class OcrRateLimiter {
+
+    private final int callsPerMinute;
+    private final int burst;
+    private final long intervalNanos;
+    private final Duration defaultRetryAfter;
+    private final long maxWaitNanos;
+
+    // Start of the next free slot; may lag behind now by up to (burst - 1) intervals of saved-up permits
+    private long nextFreeNanos = System.nanoTime();
+    // No call may start before this, after a 429
+    private long holdBackUntilNanos = System.nanoTime();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong throttledNanos = new AtomicLong();
+    private final AtomicLong rateLimitResponses = new AtomicLong();
+    private final AtomicLong rescheduled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public OcrRateLimiter(@Value("${ocr.rate-limit.calls-per-minute:20}") int callsPerMinute,
+                          @Value("${ocr.rate-limit.burst:1}") int burst,
+                          @Value("${ocr.rate-limit.default-retry-after-ms:10000}") long defaultRetryAfterMs,
+                          @Value("${ocr.rate-limit.max-wait-ms:60000}") long maxWaitMs) {
+        if (callsPerMinute < 1 || burst < 1 || maxWaitMs < 0) {
+            throw new IllegalArgumentException("OCR rate limit and burst must be positive, max wait not negative");
+        }
+        this.callsPerMinute = callsPerMinute;
+        this.burst = burst;
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / callsPerMinute;
+        this.defaultRetryAfter = Duration.ofMillis(defaultRetryAfterMs);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+    }
+
+    /**
+     * Block until the caller's reserved slot in the budget arrives and no 429 hold-back is in
+     * force.
+     *
+     * @throws IllegalStateException if no slot is free within {@code ocr.rate-limit.max-wait-ms}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire() throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + maxWaitNanos;
+        long slot = reserve(deadline);
+        boolean queued = false;
+        try {
+            while (true) {
+                if (holdBackUntil() > slot) {
+                    // A 429 arrived after this slot was reserved; queue behind the hold-back instead
+                    rescheduled.incrementAndGet();
+                    slot = reserve(deadline);
+                    continue;
+                }
+                long waitNanos = slot - System.nanoTime();
+                if (waitNanos <= 0) {
+                    break;
+                }
+                if (!queued) {
+                    queued = true;
+                    waiting.incrementAndGet();
+                }
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        } finally {
+            if (queued) {
+                waiting.decrementAndGet();
+            }
+            throttledNanos.addAndGet(System.nanoTime() - start);
+        }
+        calls.incrementAndGet();
+    }
+
+    /**
+     * Record a 429 and hold every caller back until the server is ready again.
+     *
+     * @param retryAfter Delay from the response's {@code Retry-After}, or null if absent
+     */
+    public synchronized void onRateLimited(Duration retryAfter) {
+        Duration delay = retryAfter != null ? retryAfter : defaultRetryAfter;
+        rateLimitResponses.incrementAndGet();
+        holdBackUntilNanos = Math.max(holdBackUntilNanos, System.nanoTime() + delay.toNanos());
+        log.warn("OCR rate limit hit, holding calls back for {} ms", delay.toMillis());
+    }
+
+    public int getCallsPerMinute() {
+        return callsPerMinute;
+    }
+
+    /**
+     * @return Callers currently waiting for their slot; above zero the quota is the bottleneck
+     */
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("callsPerMinute", callsPerMinute);
+        stats.put("burst", burst);
+        stats.put("availablePermits", availablePermits());
+        stats.put("queueDepth", waiting.get());
+        stats.put("calls", calls.get());
+        stats.put("throttledMillis", TimeUnit.NANOSECONDS.toMillis(throttledNanos.get()));
+        stats.put("rateLimitResponses", rateLimitResponses.get());
+        stats.put("rescheduled", rescheduled.get());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    /**
+     * @return Start of the caller's slot, at or after any hold-back
+     */
+    private synchronized long reserve(long deadline) {
+        long now = System.nanoTime();
+        long slot = Math.max(Math.max(nextFreeNanos, holdBackUntilNanos), now - (burst - 1) * intervalNanos);
+        if (slot > deadline) {
+            rejected.incrementAndGet();
+            throw new IllegalStateException("OCR rate limit queue is full: next slot in "
+                    + TimeUnit.NANOSECONDS.toMillis(slot - now) + " ms");
+        }
+        nextFreeNanos = slot + intervalNanos;
+        return slot;
+    }
+
+    private synchronized long holdBackUntil() {
+        return holdBackUntilNanos;
+    }
+
+    private synchronized long availablePermits() {
+        long now = System.nanoTime();
+        long next = Math.max(nextFreeNanos, holdBackUntilNanos);
+        if (now < next) {
+            return 0;
+        }
+        return Math.min(burst, (now - next) / intervalNanos + 1);
+    }
+}
@@ -0,0 +1,24 @@
+package com.sarahmaas.kafka.service;
+
+/**
+ * Header text read by an {@link OcrEngine}, with the engine's mean confidence in [0, 100],
+ * or {@link Double#NaN} when the engine does not report one.
+ */
+public class OcrResult {
+
+    private final String text;
+    private final double confidence;
+
+    public OcrResult(String text, double confidence) {
+        this.text = text;
+        this.confidence = confidence;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+}
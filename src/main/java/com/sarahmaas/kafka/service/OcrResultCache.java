@@ -0,0 +1,155 @@
+package com.sarahmaas.kafka.service;
+
+import com.sarahmaas.kafka.model.OcrCacheEntry;
+import com.sarahmaas.kafka.repository.OcrCacheEntryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed cache of raw OCR results, keyed by a hash of the exact image bytes sent to
+ * Azure plus the requested feature set. A byte-bounded in-memory LRU tier sits in front of a
+ * durable Mongo collection, so replaying a book serves repeated crops without a network call.
+ */
+@Slf4j
+@Service
+public class OcrResultCache {
+
+    // Rough per-entry overhead of the map node, key and value objects
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    private final OcrCacheEntryRepository repository;
+    private final boolean enabled;
+    private final boolean durable;
+    private final long maxMemoryBytes;
+
+    private final LinkedHashMap<String, String> memory = new LinkedHashMap<>(256, 0.75f, true);
+    private long memoryBytes;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong durableHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public OcrResultCache(OcrCacheEntryRepository repository,
+                          @Value("${ocr.cache.enabled:true}") boolean enabled,
+                          @Value("${ocr.cache.durable:true}") boolean durable,
+                          @Value("${ocr.cache.max-memory-bytes:16777216}") long maxMemoryBytes) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.durable = durable;
+        this.maxMemoryBytes = maxMemoryBytes;
+    }
+
+    /**
+     * Cache key for an image and the OCR features requested for it.
+     */
+    public String key(byte[] imageBytes, String features) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(imageBytes);
+            digest.update(features.getBytes(StandardCharsets.UTF_8));
+            return String.format("%064x", new BigInteger(1, digest.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Look up a cached result, checking memory first and then the durable tier.
+     *
+     * @return The serialized OCR result, if present
+     */
+    public Optional<String> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        synchronized (this) {
+            String cached = memory.get(key);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return Optional.of(cached);
+            }
+        }
+
+        if (durable) {
+            try {
+                Optional<OcrCacheEntry> entry = repository.findById(key);
+                if (entry.isPresent()) {
+                    durableHits.incrementAndGet();
+                    putInMemory(key, entry.get().getResultJson());
+                    return Optional.of(entry.get().getResultJson());
+                }
+            } catch (Exception e) {
+                log.warn("OCR cache lookup failed for {}: {}", key, e.getMessage());
+            }
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    public void put(String key, String resultJson) {
+        if (!enabled) {
+            return;
+        }
+
+        putInMemory(key, resultJson);
+
+        if (durable) {
+            try {
+                repository.save(OcrCacheEntry.builder().id(key).resultJson(resultJson).build());
+            } catch (Exception e) {
+                log.warn("OCR cache write failed for {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("durable", durable);
+        synchronized (this) {
+            stats.put("memoryEntries", memory.size());
+            stats.put("memoryBytes", memoryBytes);
+        }
+        stats.put("maxMemoryBytes", maxMemoryBytes);
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("durableHits", durableHits.get());
+        stats.put("misses", misses.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private synchronized void putInMemory(String key, String resultJson) {
+        String previous = memory.put(key, resultJson);
+        if (previous != null) {
+            memoryBytes -= sizeOf(key, previous);
+        }
+        memoryBytes += sizeOf(key, resultJson);
+
+        // Evict least recently used entries until back under the byte budget
+        Iterator<Map.Entry<String, String>> eldest = memory.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+            Map.Entry<String, String> entry = eldest.next();
+            memoryBytes -= sizeOf(entry.getKey(), entry.getValue());
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static long sizeOf(String key, String value) {
+        return ENTRY_OVERHEAD_BYTES + 2L * (key.length() + value.length());
+    }
+}
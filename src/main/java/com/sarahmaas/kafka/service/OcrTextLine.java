@@ -0,0 +1,34 @@
+package com.sarahmaas.kafka.service;
+
+/**
+ * A line of OCR text with the vertical centre of its bounding polygon, in pixels from the top of
+ * the crop it was read from, and the engine's confidence in it in [0, 100] or {@link Double#NaN}.
+ */
+public class OcrTextLine {
+
+    private final String text;
+    private final double centreY;
+    private final double confidence;
+
+    public OcrTextLine(String text, double centreY) {
+        this(text, centreY, Double.NaN);
+    }
+
+    public OcrTextLine(String text, double centreY, double confidence) {
+        this.text = text;
+        this.centreY = centreY;
+        this.confidence = confidence;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public double getCentreY() {
+        return centreY;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+}
@@ -0,0 +1,177 @@
+package com.sarahmaas.kafka.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.sarahmaas.kafka.model.PageExtraction;
+import com.sarahmaas.kafka.model.PageHeader;
+import com.sarahmaas.kafka.repository.PageExtractionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read side of the extracted page headers. Whole books are loaded with one projected query and
+ * kept in a Caffeine cache bounded by total pages and expiring after a TTL; page and page-range
+ * lookups are binary searches in the cached book. Pages saved by this consumer are applied to a
+ * cached book in place, so the TTL only bounds how stale pages written by other replicas can be.
+ */
+@Slf4j
+@Service
+public class PageHeaderCache {
+
+    private final PageExtractionRepository repository;
+    private final boolean enabled;
+    private final long maxPages;
+    private final Cache<String, BookHeaders> books;
+
+    public PageHeaderCache(PageExtractionRepository repository,
+                           @Value("${book-events.read-cache.enabled:true}") boolean enabled,
+                           @Value("${book-events.read-cache.max-pages:200000}") long maxPages,
+                           @Value("${book-events.read-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.maxPages = maxPages;
+        this.books = Caffeine.newBuilder()
+                // An empty book still costs an entry
+                .<String, BookHeaders>weigher((bookId, book) -> Math.max(1, book.size()))
+                .maximumWeight(maxPages)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<PageHeader> getPage(String bookId, int pageNum) {
+        BookHeaders book = book(bookId);
+        int index = Arrays.binarySearch(book.pageNums, pageNum);
+        return index < 0 ? Optional.empty() : Optional.of(book.header(index));
+    }
+
+    /**
+     * @return Pages from {@code fromPage} to {@code toPage}, both inclusive, in page order
+     */
+    public List<PageHeader> getRange(String bookId, int fromPage, int toPage) {
+        BookHeaders book = book(bookId);
+        if (fromPage > toPage) {
+            return Collections.emptyList();
+        }
+        int from = insertionPoint(book.pageNums, fromPage);
+        int to = toPage == Integer.MAX_VALUE ? book.size() : insertionPoint(book.pageNums, toPage + 1);
+        List<PageHeader> headers = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            headers.add(book.header(i));
+        }
+        return headers;
+    }
+
+    public List<PageHeader> getBook(String bookId) {
+        return getRange(bookId, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Apply a page the consumer has just persisted to its book, if the book is cached.
+     */
+    public void saved(PageExtraction extraction) {
+        if (!enabled || extraction.getBookId() == null || extraction.getPageNum() == null) {
+            return;
+        }
+        books.asMap().computeIfPresent(extraction.getBookId(),
+                (bookId, book) -> book.with(extraction.getPageNum(), extraction.getExtractedText()));
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats cacheStats = books.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("books", books.estimatedSize());
+        stats.put("maxPages", maxPages);
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("hitRate", cacheStats.hitRate());
+        stats.put("evictions", cacheStats.evictionCount());
+        stats.put("meanLoadMillis", cacheStats.averageLoadPenalty() / 1_000_000.0);
+        return stats;
+    }
+
+    private BookHeaders book(String bookId) {
+        if (!enabled) {
+            return load(bookId);
+        }
+        return books.get(bookId, this::load);
+    }
+
+    private BookHeaders load(String bookId) {
+        List<PageHeader> headers = repository.findHeadersByBookId(bookId);
+        log.debug("Loaded {} page headers of book {}", headers.size(), bookId);
+        int[] pageNums = new int[headers.size()];
+        String[] texts = new String[headers.size()];
+        int size = 0;
+        for (PageHeader header : headers) {
+            if (header.getPageNum() != null) {
+                pageNums[size] = header.getPageNum();
+                texts[size] = header.getExtractedText();
+                size++;
+            }
+        }
+        return new BookHeaders(bookId, Arrays.copyOf(pageNums, size), Arrays.copyOf(texts, size));
+    }
+
+    private static int insertionPoint(int[] pageNums, int pageNum) {
+        int index = Arrays.binarySearch(pageNums, pageNum);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    /**
+     * Immutable snapshot of one book's headers as parallel arrays sorted by page number.
+     */
+    private static final class BookHeaders {
+        private final String bookId;
+        private final int[] pageNums;
+        private final String[] texts;
+
+        private BookHeaders(String bookId, int[] pageNums, String[] texts) {
+            this.bookId = bookId;
+            this.pageNums = pageNums;
+            this.texts = texts;
+        }
+
+        private int size() {
+            return pageNums.length;
+        }
+
+        private PageHeader header(int index) {
+            return new PageHeader(bookId, pageNums[index], texts[index]);
+        }
+
+        /**
+         * Copy with the page's text replaced, or the page inserted in order.
+         */
+        private BookHeaders with(int pageNum, String text) {
+            int index = Arrays.binarySearch(pageNums, pageNum);
+            if (index >= 0) {
+                String[] updatedTexts = texts.clone();
+                updatedTexts[index] = text;
+                return new BookHeaders(bookId, pageNums, updatedTexts);
+            }
+            int insertAt = -index - 1;
+            int[] updatedPageNums = new int[pageNums.length + 1];
+            String[] updatedTexts = new String[texts.length + 1];
+            System.arraycopy(pageNums, 0, updatedPageNums, 0, insertAt);
+            System.arraycopy(texts, 0, updatedTexts, 0, insertAt);
+            updatedPageNums[insertAt] = pageNum;
+            updatedTexts[insertAt] = text;
+            System.arraycopy(pageNums, insertAt, updatedPageNums, insertAt + 1, pageNums.length - insertAt);
+            System.arraycopy(texts, insertAt, updatedTexts, insertAt + 1, texts.length - insertAt);
+            return new BookHeaders(bookId, updatedPageNums, updatedTexts);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.sarahmaas.kafka.service;
+
+import com.sarahmaas.kafka.image.ArchiveIndex;
+import com.sarahmaas.kafka.image.ByteBufferImageInputStream;
+import com.sarahmaas.kafka.image.ImageSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Page images under {@code file-path.prefix}. A plain {@code imagePath} names an image file, as
+ * always. A path of the form {@code <bundle>!/<entry>} names an entry of a per-book zip or tar
+ * bundle, read through the bundle's {@link ArchiveIndex}, so a page costs no file system lookup
+ * once its book's bundle is open. The {@code file-path.archive.max-open} most recently used
+ * bundles stay open and indexed; an evicted bundle is closed once the reads in flight on it end.
+ * Bundles must lie under {@code file-path.prefix}.
+ */
+@Slf4j
+@Service
+public class PageImageSource implements ImageSource {
+
+    public static final String ENTRY_SEPARATOR = "!/";
+
+    private final ImageSource files;
+    private final Path root;
+    private final int maxOpenArchives;
+
+    // Access-ordered, so the first entry is the least recently used bundle
+    private final LinkedHashMap<Path, ArchiveIndex> archives = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong fileReads = new AtomicLong();
+    private final AtomicLong entryReads = new AtomicLong();
+    private final AtomicLong archivesIndexed = new AtomicLong();
+    private final AtomicLong archivesClosed = new AtomicLong();
+
+    public PageImageSource(@Value("${file-path.prefix}") String filePathPrefix,
+                           @Value("${file-path.archive.max-open:64}") int maxOpenArchives) {
+        this.files = ImageSource.files(filePathPrefix + "/");
+        this.root = Paths.get(filePathPrefix).toAbsolutePath().normalize();
+        this.maxOpenArchives = Math.max(1, maxOpenArchives);
+    }
+
+    @Override
+    public ImageInputStream open(String imagePath) throws IOException {
+        int separator = imagePath.indexOf(ENTRY_SEPARATOR);
+        if (separator < 0) {
+            fileReads.incrementAndGet();
+            return files.open(imagePath);
+        }
+        ArchiveIndex archive = archive(imagePath.substring(0, separator), true);
+        try {
+            entryReads.incrementAndGet();
+            return new ByteBufferImageInputStream(archive.read(imagePath.substring(separator + ENTRY_SEPARATOR.length())));
+        } finally {
+            archive.release();
+        }
+    }
+
+    /**
+     * Entry names of a bundle, sorted.
+     *
+     * @param bundle Path of the bundle relative to {@code file-path.prefix}
+     */
+    public List<String> entries(String bundle) throws IOException {
+        List<String> names = new ArrayList<>(archive(bundle, false).names());
+        names.sort(null);
+        return names;
+    }
+
+    public Map<String, Object> getStats() {
+        long entries = 0;
+        int open;
+        synchronized (archives) {
+            open = archives.size();
+            for (ArchiveIndex archive : archives.values()) {
+                entries += archive.size();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxOpenArchives", maxOpenArchives);
+        stats.put("openArchives", open);
+        stats.put("indexedEntries", entries);
+        stats.put("archivesIndexed", archivesIndexed.get());
+        stats.put("archivesClosed", archivesClosed.get());
+        stats.put("fileReads", fileReads.get());
+        stats.put("entryReads", entryReads.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (archives) {
+            archives.values().forEach(this::closeQuietly);
+            archives.clear();
+        }
+    }
+
+    /**
+     * @param retain Whether to {@link ArchiveIndex#retain} the archive for a read, which the
+     *               caller then releases; retaining under the lock means eviction cannot close
+     *               it first
+     */
+    private ArchiveIndex archive(String bundle, boolean retain) throws IOException {
+        Path path = root.resolve(bundle).normalize();
+        if (!path.startsWith(root)) {
+            throw new AccessDeniedException(bundle, null, "bundle is outside of " + root);
+        }
+        synchronized (archives) {
+            ArchiveIndex open = archives.get(path);
+            if (open != null) {
+                if (retain) {
+                    open.retain();
+                }
+                return open;
+            }
+        }
+
+        // Index outside the lock so pages of other books keep flowing; a lost race closes the copy
+        long start = System.currentTimeMillis();
+        ArchiveIndex indexed = ArchiveIndex.open(path);
+        synchronized (archives) {
+            ArchiveIndex raced = archives.putIfAbsent(path, indexed);
+            if (raced != null) {
+                closeQuietly(indexed);
+                if (retain) {
+                    raced.retain();
+                }
+                return raced;
+            }
+            if (retain) {
+                indexed.retain();
+            }
+            archivesIndexed.incrementAndGet();
+            log.info("Indexed {} entries of {} in {}ms", indexed.size(), path, System.currentTimeMillis() - start);
+
+            Iterator<ArchiveIndex> eldest = archives.values().iterator();
+            while (archives.size() > maxOpenArchives) {
+                closeQuietly(eldest.next());
+                eldest.remove();
+            }
+            return indexed;
+        }
+    }
+
+    private void closeQuietly(ArchiveIndex archive) {
+        try {
+            archive.close();
+            archivesClosed.incrementAndGet();
+        } catch (IOException e) {
+            log.warn("Could not close {}: {}", archive.getPath(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.sarahmaas.kafka.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Micrometer instrumentation of the page pipeline. Every meter is tagged with the listener and
+ * partition of the page being processed, which the consumer binds to the processing thread with
+ * {@link #bind}; work done on helper threads carries the context bound there, or {@code none}
+ * when it serves several pages at once (a composite OCR call).
+ * <p>
+ * Timers publish percentile histograms through {@code management.metrics.distribution}.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String DESERIALIZE = "deserialize";
+    public static final String IMAGE_LOAD = "image_load";
+    public static final String CROP_ENCODE = "crop_encode";
+    public static final String MONGO_SAVE = "mongo_save";
+    public static final String END_TO_END = "end_to_end";
+    public static final String OCR = "ocr";
+
+    private static final String STAGE_TIMER = "book_events.stage";
+    public static final String OCR_ATTEMPT_TIMER = "book_events.ocr.attempt";
+    public static final String ENGINE_TAG = "engine";
+    public static final String AZURE_ENGINE = "azure";
+    private static final String CROP_ITERATIONS = "book_events.ocr.crop_iterations";
+    private static final String RATE_LIMITED = "book_events.ocr.rate_limited";
+    private static final String FAILURES = "book_events.failures";
+
+    private static final ThreadLocal<Context> CONTEXT = ThreadLocal.withInitial(() -> Context.NONE);
+
+    private final MeterRegistry registry;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Attribute the meters recorded on this thread to a listener and partition until the
+     * returned context is restored with {@link #restore}.
+     *
+     * @return The context bound before
+     */
+    public Context bind(String listener, int partition) {
+        return bind(listener, String.valueOf(partition));
+    }
+
+    /**
+     * @param partition Partition number, or a label such as {@code all} for work spanning a whole poll
+     */
+    public Context bind(String listener, String partition) {
+        return bind(new Context(listener, partition));
+    }
+
+    public Context bind(Context context) {
+        Context previous = CONTEXT.get();
+        CONTEXT.set(context);
+        return previous;
+    }
+
+    /**
+     * Bind again the context {@link #bind} returned, in a {@code finally} block.
+     */
+    public void restore(Context previous) {
+        CONTEXT.set(previous);
+    }
+
+    /**
+     * The context bound to this thread, for handing work to another thread.
+     */
+    public Context current() {
+        return CONTEXT.get();
+    }
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    /**
+     * Record a pipeline stage started with {@link #start}.
+     */
+    public void stop(Timer.Sample sample, String stage) {
+        sample.stop(Timer.builder(STAGE_TIMER)
+                .description("Time spent per page in each stage of the consumer pipeline")
+                .tags(contextTags().and("stage", stage))
+                .register(registry));
+    }
+
+    /**
+     * Record one OCR call of an engine.
+     *
+     * @param outcome {@code success}, {@code rate_limited} or {@code error}
+     */
+    public void stopOcrAttempt(Timer.Sample sample, String engine, String outcome) {
+        sample.stop(Timer.builder(OCR_ATTEMPT_TIMER)
+                .description("Duration of each OCR call, including every crop-ratio attempt")
+                .tags(contextTags().and(ENGINE_TAG, engine, "outcome", outcome))
+                .register(registry));
+    }
+
+    /**
+     * Record how many crop ratios were sent to OCR before a page's header was found.
+     */
+    public void recordCropIterations(int iterations) {
+        DistributionSummary.builder(CROP_ITERATIONS)
+                .description("Crop-ratio OCR attempts per page")
+                .tags(contextTags())
+                .register(registry)
+                .record(iterations);
+    }
+
+    public void rateLimited() {
+        Counter.builder(RATE_LIMITED)
+                .description("OCR calls rejected with HTTP 429")
+                .tags(contextTags())
+                .register(registry)
+                .increment();
+    }
+
+    public void failure(String stage) {
+        Counter.builder(FAILURES)
+                .description("Pages that failed, by the stage that failed")
+                .tags(contextTags().and("stage", stage))
+                .register(registry)
+                .increment();
+    }
+
+    private static Tags contextTags() {
+        Context context = CONTEXT.get();
+        return Tags.of("listener", context.listener, "partition", context.partition);
+    }
+
+    /**
+     * Listener and partition a page came from.
+     */
+    public static final class Context {
+
+        public static final Context NONE = new Context("none", "none");
+
+        private final String listener;
+        private final String partition;
+
+        private Context(String listener, String partition) {
+            this.listener = listener;
+            this.partition = partition;
+        }
+    }
+}
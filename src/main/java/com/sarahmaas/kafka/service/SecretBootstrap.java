@@ -0,0 +1,145 @@
+package com.sarahmaas.kafka.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Secrets needed at startup, fetched once and concurrently: the Vault secret document holding the
+ * Azure OCR Fernet keys, fetched with a single Vault token, and the MongoDB credentials. Both
+ * fetches start as soon as the first bean needing either is created, so the Vault round trips
+ * overlap the Mongo client and context setup instead of following them.
+ * <p>
+ * Fetched values are kept in memory only, for {@code secrets.cache.ttl-seconds}.
+ */
+@Slf4j
+@Service
+public class SecretBootstrap {
+
+    private static final String VAULT_SECRETS = "vault-secrets";
+    private static final String MONGO_CREDENTIALS = "mongo-credentials";
+
+    // Each fetch blocks on HTTP, so it gets its own daemon thread rather than the common pool
+    private static final Executor FETCH_EXECUTOR = task -> {
+        Thread thread = new Thread(task, "secret-bootstrap");
+        thread.setDaemon(true);
+        thread.start();
+    };
+
+    private final VaultTokenService vaultTokenService;
+    private final RestTemplateBuilder restTemplateBuilder;
+    private final String credentialsUrl;
+    private final Duration ttl;
+
+    private CachedSecrets vaultSecrets;
+    private CachedSecrets mongoCredentials;
+
+    public SecretBootstrap(VaultTokenService vaultTokenService,
+                           RestTemplateBuilder restTemplateBuilder,
+                           @Value("${credentials.uri}") String credentialsUrl,
+                           @Value("${secrets.cache.ttl-seconds:3600}") long ttlSeconds) {
+        this.vaultTokenService = vaultTokenService;
+        this.restTemplateBuilder = restTemplateBuilder;
+        this.credentialsUrl = credentialsUrl;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        vaultSecrets = load(VAULT_SECRETS, vaultTokenService::fetchSecrets);
+        mongoCredentials = load(MONGO_CREDENTIALS, this::fetchMongoCredentials);
+    }
+
+    /**
+     * A key of the Vault secret document, waiting for the fetch if it is still in flight.
+     *
+     * @throws IllegalStateException if the secret could not be fetched or has no such key
+     */
+    public String vaultSecret(String key) {
+        Map<String, String> secrets = await(current(VAULT_SECRETS));
+        if (!secrets.containsKey(key)) {
+            throw new IllegalStateException("Key '" + key + "' not found in Vault");
+        }
+        return secrets.get(key);
+    }
+
+    /**
+     * MongoDB credentials from {@code credentials.uri}, waiting for the fetch if it is still in flight.
+     */
+    public Map<String, String> mongoCredentials() {
+        return await(current(MONGO_CREDENTIALS));
+    }
+
+    private synchronized CompletableFuture<Map<String, String>> current(String name) {
+        boolean vault = VAULT_SECRETS.equals(name);
+        CachedSecrets cached = vault ? vaultSecrets : mongoCredentials;
+        if (cached.isExpired(ttl) || cached.values.isCompletedExceptionally()) {
+            cached = load(name, vault ? vaultTokenService::fetchSecrets : this::fetchMongoCredentials);
+            if (vault) {
+                vaultSecrets = cached;
+            } else {
+                mongoCredentials = cached;
+            }
+        }
+        return cached.values;
+    }
+
+    private CachedSecrets load(String name, Supplier<Map<String, String>> fetch) {
+        long fetchedAt = System.currentTimeMillis();
+        CompletableFuture<Map<String, String>> values = CompletableFuture.supplyAsync(() -> {
+            long start = System.currentTimeMillis();
+            Map<String, String> fetched = fetch.get();
+            log.info("Fetched {} in {}ms", name, System.currentTimeMillis() - start);
+            return fetched;
+        }, FETCH_EXECUTOR);
+        return new CachedSecrets(fetchedAt, values);
+    }
+
+    private Map<String, String> fetchMongoCredentials() {
+        RestTemplate restTemplate = restTemplateBuilder.build();
+        log.info("Fetching MongoDB credentials from: {}", credentialsUrl);
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> credentials = restTemplate.getForObject(credentialsUrl, Map.class);
+
+        if (credentials == null || credentials.isEmpty()) {
+            throw new IllegalStateException("No credentials returned from endpoint");
+        }
+        return credentials;
+    }
+
+    private static Map<String, String> await(CompletableFuture<Map<String, String>> values) {
+        try {
+            return values.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static final class CachedSecrets {
+        private final long fetchedAt;
+        private final CompletableFuture<Map<String, String>> values;
+
+        private CachedSecrets(long fetchedAt, CompletableFuture<Map<String, String>> values) {
+            this.fetchedAt = fetchedAt;
+            this.values = values;
+        }
+
+        private boolean isExpired(Duration ttl) {
+            return System.currentTimeMillis() - fetchedAt > ttl.toMillis();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.sarahmaas.kafka.service;
+
+import com.sarahmaas.kafka.image.PreparedHeader;
+import io.micrometer.core.instrument.Timer;
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.Tesseract;
+import net.sourceforge.tess4j.Word;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Local tier: Tesseract via tess4j, run in-process on the widest header crop. The header lines
+ * are then picked with the same crop search as the single-call Azure mode, and the result's
+ * confidence is the mean over those lines only. Requires libtesseract
+ * and the {@code ocr.local.tessdata-path} language data on the host.
+ */
+@Component
+@ConditionalOnProperty(name = "ocr.local.enabled", havingValue = "true")
+public class TesseractOcrEngine implements OcrEngine {
+
+    // Tesseract instances are not thread-safe, so each worker thread gets its own
+    private final ThreadLocal<Tesseract> tesseract;
+    private final PipelineMetrics pipelineMetrics;
+
+    public TesseractOcrEngine(PipelineMetrics pipelineMetrics,
+                              @Value("${ocr.local.tessdata-path:/usr/share/tesseract-ocr/5/tessdata}") String tessdataPath,
+                              @Value("${ocr.local.language:eng}") String language) {
+        this.pipelineMetrics = pipelineMetrics;
+        this.tesseract = ThreadLocal.withInitial(() -> {
+            Tesseract instance = new Tesseract();
+            instance.setDatapath(tessdataPath);
+            instance.setLanguage(language);
+            instance.setPageSegMode(ITessAPI.TessPageSegMode.PSM_AUTO);
+            return instance;
+        });
+    }
+
+    @Override
+    public String getName() {
+        return "tesseract";
+    }
+
+    @Override
+    public OcrResult recognize(PreparedHeader header) {
+        Timer.Sample attempt = pipelineMetrics.start();
+        List<Word> words;
+        try {
+            words = tesseract.get().getWords(
+                    HeaderCropSearch.widestCrop(header.getBand()),
+                    ITessAPI.TessPageIteratorLevel.RIL_TEXTLINE);
+        } catch (RuntimeException e) {
+            pipelineMetrics.stopOcrAttempt(attempt, getName(), "error");
+            throw e;
+        }
+        pipelineMetrics.stopOcrAttempt(attempt, getName(), "success");
+
+        List<OcrTextLine> lines = new ArrayList<>();
+        for (Word word : words) {
+            String text = word.getText() == null ? "" : word.getText().trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            Rectangle box = word.getBoundingBox();
+            lines.add(new OcrTextLine(text, box.getCenterY(), word.getConfidence()));
+        }
+
+        // Text outside the selected crop, such as body text at the top of the page, must not vouch for the header
+        List<OcrTextLine> headerLines = HeaderCropSearch.selectHeaderTextLines(header.getBand(), lines);
+        StringBuilder text = new StringBuilder();
+        double confidenceSum = 0;
+        for (OcrTextLine line : headerLines) {
+            text.append(line.getText());
+            confidenceSum += line.getConfidence();
+        }
+        double confidence = headerLines.isEmpty() ? 0 : confidenceSum / headerLines.size();
+        return new OcrResult(text.toString(), confidence);
+    }
+}
@@ -0,0 +1,125 @@
+package com.sarahmaas.kafka.service;
+
+import com.sarahmaas.kafka.image.PreparedHeader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Local-first OCR: every page is read by the in-process engine when one is enabled, and escalated
+ * to Azure only when the local result is below {@code ocr.local.min-confidence} or fails the
+ * {@code ocr.local.accept-pattern} text check. Without a local engine every page goes to Azure.
+ */
+@Slf4j
+@Primary
+@Component
+public class TieredOcrEngine implements OcrEngine {
+
+    // A plausible heading: starts with a letter or digit, then only word characters and light punctuation
+    private static final String DEFAULT_ACCEPT_PATTERN = "^[\\p{L}\\p{N}][\\p{L}\\p{N} '’.,:;!?&-]+$";
+
+    private final OcrEngine localEngine;
+    private final OcrEngine remoteEngine;
+    private final double minConfidence;
+    private final Pattern acceptPattern;
+
+    private final AtomicLong localAccepted = new AtomicLong();
+    private final AtomicLong escalatedLowConfidence = new AtomicLong();
+    private final AtomicLong escalatedRejectedText = new AtomicLong();
+    private final AtomicLong localFailures = new AtomicLong();
+    private final AtomicLong remoteCalls = new AtomicLong();
+
+    public TieredOcrEngine(ObjectProvider<TesseractOcrEngine> localEngine,
+                           AzureOcrEngine remoteEngine,
+                           @Value("${ocr.local.min-confidence:80}") double minConfidence,
+                           @Value("${ocr.local.accept-pattern:}") String acceptPattern) {
+        this.localEngine = localEngine.getIfAvailable();
+        this.remoteEngine = remoteEngine;
+        this.minConfidence = minConfidence;
+        this.acceptPattern = Pattern.compile(acceptPattern.isEmpty() ? DEFAULT_ACCEPT_PATTERN : acceptPattern);
+    }
+
+    @Override
+    public String getName() {
+        return localEngine == null ? remoteEngine.getName() : localEngine.getName() + "+" + remoteEngine.getName();
+    }
+
+    /**
+     * With a local engine most pages never reach Azure, so its crop is encoded only on escalation.
+     */
+    @Override
+    public PreparedHeader prepareAhead(PreparedHeader header) {
+        return localEngine == null ? remoteEngine.prepareAhead(header) : localEngine.prepareAhead(header);
+    }
+
+    @Override
+    public OcrResult recognize(PreparedHeader header) {
+        OcrResult local = recognizeLocally(header);
+        if (local != null) {
+            return local;
+        }
+        remoteCalls.incrementAndGet();
+        return remoteEngine.recognize(header);
+    }
+
+    /**
+     * The local tier runs before returning; only an escalated page is left in flight.
+     */
+    @Override
+    public CompletableFuture<OcrResult> recognizeAsync(PreparedHeader header) {
+        OcrResult local = recognizeLocally(header);
+        if (local != null) {
+            return CompletableFuture.completedFuture(local);
+        }
+        remoteCalls.incrementAndGet();
+        return remoteEngine.recognizeAsync(header);
+    }
+
+    /**
+     * @return The local result if it is accepted, or null to escalate
+     */
+    private OcrResult recognizeLocally(PreparedHeader header) {
+        if (localEngine != null) {
+            try {
+                OcrResult local = localEngine.recognize(header);
+                if (local.getConfidence() < minConfidence) {
+                    escalatedLowConfidence.incrementAndGet();
+                    log.debug("Escalating {}: local confidence {}", header.getImagePath(), local.getConfidence());
+                } else if (!acceptPattern.matcher(local.getText()).matches()) {
+                    escalatedRejectedText.incrementAndGet();
+                    log.debug("Escalating {}: local text '{}' rejected", header.getImagePath(), local.getText());
+                } else {
+                    localAccepted.incrementAndGet();
+                    return local;
+                }
+            } catch (Exception | UnsatisfiedLinkError e) {
+                localFailures.incrementAndGet();
+                log.warn("Local OCR failed for {}, escalating: {}", header.getImagePath(), e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    public Map<String, Object> getStats() {
+        long accepted = localAccepted.get();
+        long remote = remoteCalls.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localEngine", localEngine == null ? "disabled" : localEngine.getName());
+        stats.put("remoteEngine", remoteEngine.getName());
+        stats.put("localAccepted", accepted);
+        stats.put("escalatedLowConfidence", escalatedLowConfidence.get());
+        stats.put("escalatedRejectedText", escalatedRejectedText.get());
+        stats.put("localFailures", localFailures.get());
+        stats.put("remoteCalls", remote);
+        stats.put("localOnlyFraction", accepted + remote == 0 ? 0.0 : (double) accepted / (accepted + remote));
+        return stats;
+    }
+}
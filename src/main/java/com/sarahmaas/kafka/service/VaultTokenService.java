@@ -2,6 +2,7 @@ package com.sarahmaas.kafka.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -16,7 +17,13 @@ import java.security.KeyStore;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
 import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+@Slf4j
 @Service
 public class VaultTokenService {
 
@@ -34,6 +41,9 @@ public class VaultTokenService {
     
     private final HttpClient httpClient;
     private final ObjectMapper objectMapper;
+
+    // Built once: parsing ca.crt and setting up TLS is part of every Vault call otherwise
+    private volatile HttpClient sslHttpClient;
     
     public VaultTokenService() {
         this.httpClient = HttpClient.newBuilder()
@@ -52,8 +62,11 @@ public class VaultTokenService {
         try {
             // Fetch VM metadata
             // Using IMDS metadata service for DigitalOcean. This IP address is non-routable and cannot be accessed externally.
-            String vmId = fetchMetadata("http://169.254.169.254/metadata/v1/id");
-            String publicKeys = fetchMetadata("http://169.254.169.254/metadata/v1/public-keys");
+            // Both lookups are in flight at once
+            CompletableFuture<String> vmIdLookup = fetchMetadata("http://169.254.169.254/metadata/v1/id");
+            CompletableFuture<String> publicKeysLookup = fetchMetadata("http://169.254.169.254/metadata/v1/public-keys");
+            String vmId = vmIdLookup.join();
+            String publicKeys = publicKeysLookup.join();
             
             // Vault token retrieval service
             String url = String.format("http://%s/fetchVaultToken", vaultRetrieverAddr);
@@ -83,36 +96,37 @@ public class VaultTokenService {
             }
         } catch (IOException | InterruptedException e) {
             return "Request failed: " + e.getMessage();
+        } catch (CompletionException e) {
+            return "Request failed: " + e.getCause().getMessage();
         }
     }
     
     /**
      * Helper method to fetch metadata from the given URL.
      */
-    private String fetchMetadata(String url) throws IOException, InterruptedException {
+    private CompletableFuture<String> fetchMetadata(String url) {
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .timeout(Duration.ofSeconds(5))
                 .GET()
                 .build();
         
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        
-        if (response.statusCode() != 200) {
-            throw new IOException("Failed to fetch metadata from " + url);
-        }
-        
-        return response.body().trim();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        throw new CompletionException(new IOException("Failed to fetch metadata from " + url));
+                    }
+                    return response.body().trim();
+                });
     }
     
     /**
-     * Fetch decryption key from Vault.
+     * Fetch every key of the openapi_mongodb_credentials secret with a single Vault token.
      *
-     * @param key The key to retrieve from Vault
-     * @return The value associated with the key
-     * @throws IllegalStateException if unable to fetch the key
+     * @return The keys of the secret and their values
+     * @throws IllegalStateException if unable to fetch the secret
      */
-    public String fetchDecryptionKeyFromVault(String key) {
+    public Map<String, String> fetchSecrets() {
         String vaultToken;
         
         if (hardcodedVaultToken != null && !hardcodedVaultToken.isEmpty()) {
@@ -131,7 +145,7 @@ public class VaultTokenService {
             
             if ("true".equals(sslFlag)) {
                 url = String.format("https://%s/v1/sm-secrets/data/openapi_mongodb_credentials", vaultAddr);
-                client = createSSLHttpClient("vault-droplet/ssl/ca.crt");
+                client = sslHttpClient("vault-droplet/ssl/ca.crt");
             } else {
                 url = "http://localhost:8300/v1/sm-secrets/data/openapi_mongodb_credentials";
                 client = httpClient;
@@ -152,19 +166,34 @@ public class VaultTokenService {
             
             JsonNode jsonData = objectMapper.readTree(response.body());
             JsonNode dataNode = jsonData.get("data").get("data");
-            
-            if (!dataNode.has(key)) {
-                throw new IllegalStateException("Key '" + key + "' not found in Vault");
+
+            Map<String, String> secrets = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = dataNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                secrets.put(field.getKey(), field.getValue().asText());
             }
-            
-            String keyValue = dataNode.get(key).asText();
-            System.out.println("Fetched value for " + key + ": " + (keyValue != null));
-            
-            return keyValue;
+            log.info("Fetched {} keys from Vault", secrets.size());
+
+            return secrets;
         } catch (IOException | InterruptedException e) {
             throw new IllegalStateException("Failed to fetch key from Vault: " + e.getMessage(), e);
         }
     }
+
+    private HttpClient sslHttpClient(String certPath) {
+        HttpClient client = sslHttpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = sslHttpClient;
+                if (client == null) {
+                    client = createSSLHttpClient(certPath);
+                    sslHttpClient = client;
+                }
+            }
+        }
+        return client;
+    }
     
     /**
      * Create an HTTP client with SSL support using the specified certificate.
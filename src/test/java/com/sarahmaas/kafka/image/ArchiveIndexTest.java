@@ -0,0 +1,222 @@
+package com.sarahmaas.kafka.image;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArchiveIndexTest {
+
+    private static final byte[] PAGE_1 = bytes(1, 3000);
+    private static final byte[] PAGE_2 = bytes(2, 700);
+    // Long enough for the ustar name field, and for the GNU and PAX forms to be needed
+    private static final String LONG_NAME = "books/" + "a-very-long-directory-name/".repeat(6) + "page-0002.png";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsStoredZipEntries() throws IOException {
+        Path zip = zip("stored.zip", ZipEntry.STORED);
+
+        try (ArchiveIndex archive = ArchiveIndex.open(zip)) {
+            assertThat(archive.names()).containsExactlyInAnyOrder("page-0001.png", LONG_NAME);
+            assertThat(contents(archive.read("page-0001.png"))).isEqualTo(PAGE_1);
+            assertThat(contents(archive.read(LONG_NAME))).isEqualTo(PAGE_2);
+        }
+    }
+
+    @Test
+    void inflatesDeflatedZipEntries() throws IOException {
+        Path zip = zip("deflated.zip", ZipEntry.DEFLATED);
+
+        try (ArchiveIndex archive = ArchiveIndex.open(zip)) {
+            assertThat(contents(archive.read("page-0001.png"))).isEqualTo(PAGE_1);
+            assertThat(contents(archive.read("./" + LONG_NAME))).isEqualTo(PAGE_2);
+        }
+    }
+
+    @Test
+    void readsPlainTarEntries() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        tarEntry(tar, "./page-0001.png", '0', PAGE_1);
+        tarEntry(tar, "books/", '5', new byte[0]);
+        tarEnd(tar);
+
+        try (ArchiveIndex archive = ArchiveIndex.open(write("plain.tar", tar))) {
+            assertThat(archive.names()).containsExactly("page-0001.png");
+            assertThat(contents(archive.read("page-0001.png"))).isEqualTo(PAGE_1);
+        }
+    }
+
+    @Test
+    void readsGnuLongNameTarEntries() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        tarEntry(tar, "././@LongLink", 'L', (LONG_NAME + "\0").getBytes(StandardCharsets.UTF_8));
+        tarEntry(tar, LONG_NAME.substring(0, 99), '0', PAGE_2);
+        tarEntry(tar, "page-0001.png", '0', PAGE_1);
+        tarEnd(tar);
+
+        try (ArchiveIndex archive = ArchiveIndex.open(write("gnu.tar", tar))) {
+            assertThat(archive.names()).containsExactlyInAnyOrder(LONG_NAME, "page-0001.png");
+            assertThat(contents(archive.read(LONG_NAME))).isEqualTo(PAGE_2);
+            assertThat(contents(archive.read("page-0001.png"))).isEqualTo(PAGE_1);
+        }
+    }
+
+    @Test
+    void readsPaxPathTarEntries() throws IOException {
+        String name = LONG_NAME.replace("page", "páge");
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        tarEntry(tar, "pax_global_header", 'g', paxRecord("comment", "bundle"));
+        tarEntry(tar, "PaxHeaders/page", 'x', concat(paxRecord("mtime", "1700000000.5"), paxRecord("path", name)));
+        tarEntry(tar, "page", '0', PAGE_2);
+        tarEnd(tar);
+
+        try (ArchiveIndex archive = ArchiveIndex.open(write("pax.tar", tar))) {
+            assertThat(archive.names()).containsExactly(name);
+            assertThat(contents(archive.read(name))).isEqualTo(PAGE_2);
+        }
+    }
+
+    @Test
+    void rejectsMissingEntries() throws IOException {
+        try (ArchiveIndex archive = ArchiveIndex.open(zip("stored.zip", ZipEntry.STORED))) {
+            assertThatThrownBy(() -> archive.read("page-0003.png")).isInstanceOf(NoSuchFileException.class);
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNeitherZipNorTar() throws IOException {
+        Path notAnArchive = dir.resolve("page.png");
+        Files.write(notAnArchive, bytes(3, 2048));
+
+        assertThatThrownBy(() -> ArchiveIndex.open(notAnArchive)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void retainedArchiveStaysReadableUntilReleased() throws IOException {
+        ArchiveIndex archive = ArchiveIndex.open(zip("stored.zip", ZipEntry.STORED));
+
+        archive.retain();
+        archive.close();
+        assertThat(contents(archive.read("page-0001.png"))).isEqualTo(PAGE_1);
+        archive.release();
+
+        assertThatThrownBy(archive::retain).isInstanceOf(ClosedChannelException.class);
+    }
+
+    private Path zip(String fileName, int method) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("books/"));
+            zip.closeEntry();
+            zipEntry(zip, "page-0001.png", method, PAGE_1);
+            zipEntry(zip, LONG_NAME, method, PAGE_2);
+        }
+        return write(fileName, out);
+    }
+
+    private static void zipEntry(ZipOutputStream zip, String name, int method, byte[] data) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(method);
+        if (method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setSize(data.length);
+            entry.setCrc(crc.getValue());
+        }
+        zip.putNextEntry(entry);
+        zip.write(data);
+        zip.closeEntry();
+    }
+
+    /**
+     * A ustar header block followed by the data, padded to whole blocks.
+     */
+    private static void tarEntry(OutputStream tar, String name, char type, byte[] data) throws IOException {
+        byte[] header = new byte[512];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 108, "0000000");
+        put(header, 116, "0000000");
+        put(header, 124, String.format("%011o", data.length));
+        put(header, 136, "00000000000");
+        header[156] = (byte) type;
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        long sum = 0;
+        for (byte b : header) {
+            sum += b & 0xFF;
+        }
+        put(header, 148, String.format("%06o", sum));
+        header[154] = 0;
+
+        tar.write(header);
+        tar.write(data);
+        tar.write(new byte[(512 - data.length % 512) % 512]);
+    }
+
+    private static void tarEnd(OutputStream tar) throws IOException {
+        tar.write(new byte[1024]);
+    }
+
+    /**
+     * {@code "<length> <key>=<value>\n"}, where the length counts the whole record.
+     */
+    private static byte[] paxRecord(String key, String value) {
+        int bodyLength = (" " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8).length;
+        int length = bodyLength + Integer.toString(bodyLength).length();
+        if (Integer.toString(length).length() != Integer.toString(bodyLength).length()) {
+            length++;
+        }
+        return (length + " " + key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Path write(String fileName, ByteArrayOutputStream content) throws IOException {
+        Path file = dir.resolve(fileName);
+        Files.write(file, content.toByteArray());
+        return file;
+    }
+
+    private static void put(byte[] block, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, block, offset, bytes.length);
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    private static byte[] contents(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static byte[] bytes(int seed, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31 + seed);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,178 @@
+package com.sarahmaas.kafka.serde;
+
+import com.sarahmaas.kafka.model.KafkaMessage;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KafkaMessageCodecTest {
+
+    private final KafkaMessageDeserializer deserializer = new KafkaMessageDeserializer();
+
+    @Test
+    void roundTripsAllFields() {
+        KafkaMessage message = new KafkaMessage("book-42", 317, "book-42/page-0317.png");
+
+        assertThat(roundTrip(message)).isEqualTo(message);
+    }
+
+    @Test
+    void roundTripsNullFields() {
+        assertThat(roundTrip(new KafkaMessage())).isEqualTo(new KafkaMessage());
+        assertThat(roundTrip(new KafkaMessage("book-42", null, null))).isEqualTo(new KafkaMessage("book-42", null, null));
+        assertThat(roundTrip(new KafkaMessage(null, 7, null))).isEqualTo(new KafkaMessage(null, 7, null));
+        assertThat(roundTrip(new KafkaMessage(null, null, "p.png"))).isEqualTo(new KafkaMessage(null, null, "p.png"));
+    }
+
+    @Test
+    void roundTripsEmptyStrings() {
+        KafkaMessage message = new KafkaMessage("", 0, "");
+
+        assertThat(roundTrip(message)).isEqualTo(message);
+    }
+
+    @Test
+    void roundTripsNegativeAndExtremePageNumbers() {
+        for (int pageNum : new int[] {-1, -64, -65, 63, 64, Integer.MIN_VALUE, Integer.MAX_VALUE}) {
+            KafkaMessage message = new KafkaMessage("b", pageNum, "p");
+
+            assertThat(roundTrip(message).getPageNum()).isEqualTo(pageNum);
+        }
+    }
+
+    @Test
+    void encodesSmallNegativePageNumbersInOneByte() {
+        byte[] encoded = KafkaMessageCodec.encode(new KafkaMessage(null, -1, null));
+
+        assertThat(encoded).hasSize(4);
+    }
+
+    @Test
+    void roundTripsMultiByteUtf8() {
+        KafkaMessage message = new KafkaMessage("Ελληνικά-書籍", 3, "bücher/页面-😀.png");
+
+        assertThat(roundTrip(message)).isEqualTo(message);
+    }
+
+    @Test
+    void roundTripsStringsLongerThanOneVarintByte() {
+        char[] path = new char[300];
+        Arrays.fill(path, 'é');
+        KafkaMessage message = new KafkaMessage("b", 1, new String(path));
+
+        assertThat(roundTrip(message)).isEqualTo(message);
+    }
+
+    @Test
+    void decodesFromDirectBuffers() {
+        KafkaMessage message = new KafkaMessage("book-42", -3, "ü.png");
+        byte[] encoded = KafkaMessageCodec.encode(message);
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length);
+        direct.put(encoded).flip();
+
+        assertThat(KafkaMessageCodec.decode(direct)).isEqualTo(message);
+        assertThat(direct.remaining()).isZero();
+    }
+
+    @Test
+    void decodesAtTheBufferPosition() {
+        KafkaMessage message = new KafkaMessage("b", 2, "p");
+        byte[] encoded = KafkaMessageCodec.encode(message);
+        ByteBuffer buffer = ByteBuffer.allocate(encoded.length + 5);
+        buffer.position(5);
+        buffer.put(encoded).position(5);
+
+        assertThat(KafkaMessageCodec.isBinary(buffer)).isTrue();
+        assertThat(KafkaMessageCodec.decode(buffer.slice())).isEqualTo(message);
+    }
+
+    @Test
+    void rejectsEveryTruncation() {
+        byte[] encoded = KafkaMessageCodec.encode(new KafkaMessage("book-42", 1000, "ü/page.png"));
+
+        for (int length = 1; length < encoded.length; length++) {
+            ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(encoded, length));
+
+            assertThatThrownBy(() -> KafkaMessageCodec.decode(truncated))
+                    .as("truncated to %d bytes", length)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void rejectsStringLengthBeyondTheMessage() {
+        byte[] oversized = {KafkaMessageCodec.MAGIC, KafkaMessageCodec.VERSION, 1, (byte) 0x80, 0x01, 'a'};
+
+        assertThatThrownBy(() -> KafkaMessageCodec.decode(ByteBuffer.wrap(oversized)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("String length 128");
+    }
+
+    @Test
+    void rejectsNegativeStringLength() {
+        byte[] negative = {KafkaMessageCodec.MAGIC, KafkaMessageCodec.VERSION, 1,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 'a'};
+
+        assertThatThrownBy(() -> KafkaMessageCodec.decode(ByteBuffer.wrap(negative)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("String length -1");
+    }
+
+    @Test
+    void rejectsVarintsLongerThanFiveBytes() {
+        byte[] overlong = {KafkaMessageCodec.MAGIC, KafkaMessageCodec.VERSION, 2,
+                (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+
+        assertThatThrownBy(() -> KafkaMessageCodec.decode(ByteBuffer.wrap(overlong)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Malformed varint");
+    }
+
+    @Test
+    void rejectsUnknownMagicAndVersion() {
+        assertThatThrownBy(() -> KafkaMessageCodec.decode(ByteBuffer.wrap(new byte[] {'{', 1, 0})))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> KafkaMessageCodec.decode(ByteBuffer.wrap(new byte[] {KafkaMessageCodec.MAGIC, 2, 0})))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("version 2");
+    }
+
+    @Test
+    void deserializerReadsBinaryAndJson() {
+        KafkaMessage message = new KafkaMessage("book-42", 5, "p.png");
+        byte[] json = "{\"book_id\":\"book-42\",\"page_num\":5,\"image_path\":\"p.png\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(deserializer.deserialize("t", KafkaMessageCodec.encode(message))).isEqualTo(message);
+        assertThat(deserializer.deserialize("t", json)).isEqualTo(message);
+    }
+
+    @Test
+    void deserializerIgnoresUnknownJsonProperties() {
+        byte[] json = "{\"book_id\":\"b\",\"page_num\":1,\"image_path\":\"p\",\"added_later\":true}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertThat(deserializer.deserialize("t", json)).isEqualTo(new KafkaMessage("b", 1, "p"));
+    }
+
+    @Test
+    void deserializerWrapsMalformedBinary() {
+        byte[] truncated = Arrays.copyOf(KafkaMessageCodec.encode(new KafkaMessage("b", 1, "p")), 4);
+
+        assertThatThrownBy(() -> deserializer.deserialize("t", truncated))
+                .isInstanceOf(SerializationException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static KafkaMessage roundTrip(KafkaMessage message) {
+        ByteBuffer buffer = ByteBuffer.wrap(KafkaMessageCodec.encode(message));
+        KafkaMessage decoded = KafkaMessageCodec.decode(buffer);
+        assertThat(buffer.remaining()).isZero();
+        return decoded;
+    }
+}
@@ -0,0 +1,90 @@
+package com.sarahmaas.kafka.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageImageSourceTest {
+
+    @TempDir
+    Path dir;
+
+    private PageImageSource source;
+
+    @AfterEach
+    void shutdown() {
+        if (source != null) {
+            source.shutdown();
+        }
+    }
+
+    @Test
+    void readsBundleEntriesAndPlainFiles() throws IOException {
+        Path root = Files.createDirectories(dir.resolve("images"));
+        bundle(root.resolve("book-1.zip"), "page-0001.png", "first");
+        Files.write(root.resolve("loose.png"), "loose".getBytes(StandardCharsets.UTF_8));
+        source = new PageImageSource(root.toString(), 4);
+
+        assertThat(read("book-1.zip!/page-0001.png")).isEqualTo("first");
+        assertThat(read("loose.png")).isEqualTo("loose");
+        assertThat(source.entries("book-1.zip")).containsExactly("page-0001.png");
+        assertThat(source.getStats()).containsEntry("entryReads", 1L).containsEntry("fileReads", 1L);
+    }
+
+    @Test
+    void rejectsBundlesOutsideTheRoot() throws IOException {
+        Path root = Files.createDirectories(dir.resolve("images/books"));
+        bundle(dir.resolve("outside.zip"), "page-0001.png", "secret");
+        source = new PageImageSource(root.toString(), 4);
+
+        assertThatThrownBy(() -> source.open("../../outside.zip!/page-0001.png"))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> source.entries(dir.resolve("outside.zip").toString()))
+                .isInstanceOf(AccessDeniedException.class);
+    }
+
+    @Test
+    void closesLeastRecentlyUsedBundles() throws IOException {
+        Path root = Files.createDirectories(dir.resolve("images"));
+        bundle(root.resolve("book-1.zip"), "page-0001.png", "one");
+        bundle(root.resolve("book-2.zip"), "page-0001.png", "two");
+        source = new PageImageSource(root.toString(), 1);
+
+        assertThat(read("book-1.zip!/page-0001.png")).isEqualTo("one");
+        assertThat(read("book-2.zip!/page-0001.png")).isEqualTo("two");
+        assertThat(read("book-1.zip!/page-0001.png")).isEqualTo("one");
+
+        assertThat(source.getStats())
+                .containsEntry("openArchives", 1)
+                .containsEntry("archivesIndexed", 3L)
+                .containsEntry("archivesClosed", 2L);
+    }
+
+    private String read(String imagePath) throws IOException {
+        try (ImageInputStream input = source.open(imagePath)) {
+            byte[] bytes = new byte[(int) input.length()];
+            input.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void bundle(Path file, String entry, String content) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+            zip.putNextEntry(new ZipEntry(entry));
+            zip.write(content.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+    }
+}